@@ -9,9 +9,12 @@ import net.pixelateddream.macebattles.misc.MatchmakingListener;
 import net.pixelateddream.macebattles.player.NoCacheFileException;
 import net.pixelateddream.macebattles.player.Notification;
 import net.pixelateddream.macebattles.player.NotificationCacheManager;
+import net.pixelateddream.macebattles.player.RatingCache;
 import net.pixelateddream.macebattles.player.friend.FriendsStorageManager;
 import net.pixelateddream.macebattles.util.AsyncPlayerPreLoginEventHook;
 import net.pixelateddream.macebattles.util.PlayerJoinEventHook;
+import net.pixelateddream.macebattles.util.TickMonitor;
+import net.pixelateddream.macebattles.util.TimingWheel;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
@@ -26,7 +29,9 @@ public final class Macebattles extends JavaPlugin implements Listener {
     private MapManager mapManager;
     private MatchmakingListener matchmakingListener;
     private DuelsMenu duelsMenu;
-    private final Map<UUID, Integer> playerRatings = new HashMap<>();
+    private RatingCache ratingCache;
+    private TimingWheel timingWheel; // Shared expirations (queue timeouts, duel invites, friend requests)
+    private final TickMonitor tickMonitor = new TickMonitor(); // Tick timing, advertised to the matchmaker
 
     // Entity command link system
     private final Map<UUID, EntityCommandLink> entityCommandLinks = new HashMap<>();
@@ -56,6 +61,11 @@ public final class Macebattles extends JavaPlugin implements Listener {
         entityCommandLinks.putAll(loadedLinks);
         getLogger().info("Loaded " + loadedLinks.size() + " entity command links");
 
+        // Initialize shared timing wheel, advanced once per tick
+        this.timingWheel = new TimingWheel(1024, getLogger());
+        getServer().getScheduler().runTaskTimer(this, timingWheel::advance, 1L, 1L);
+        getServer().getScheduler().runTaskTimer(this, tickMonitor::tick, 1L, 1L);
+
         // Initialize MapManager
         this.mapManager = new MapManager(this);
 
@@ -63,6 +73,14 @@ public final class Macebattles extends JavaPlugin implements Listener {
         String websocketUri = "ws://localhost:8000/ws"; // Matchmaking server endpoint
         this.matchmakingListener = new MatchmakingListener(this, websocketUri);
 
+        // Initialize rating cache (fed by the matchmaking server, prefetched in bulk on join)
+        this.ratingCache = new RatingCache(matchmakingListener,
+                getConfig().getInt("ratings.cache-max-size", 2000),
+                getConfig().getLong("ratings.cache-ttl-seconds", 60) * 1000L,
+                getConfig().getLong("ratings.max-stale-seconds", 600) * 1000L);
+        PlayerJoinEventHook.addJoinEvent(event -> ratingCache.prefetch(event.getPlayer().getUniqueId()));
+        getServer().getScheduler().runTaskTimer(this, ratingCache::flushPrefetches, 20L, 20L);
+
         // Initialize DuelsMenu
         this.duelsMenu = new DuelsMenu(this);
         kitManager = new KitManager(this);
@@ -77,6 +95,7 @@ public final class Macebattles extends JavaPlugin implements Listener {
         getServer().getPluginManager().registerEvents(new PlayerJoinEventHook(), this);
         getServer().getPluginManager().registerEvents(new AsyncPlayerPreLoginEventHook(), this);
         getServer().getPluginManager().registerEvents(new ShieldCooldownListener(this), this);
+        getServer().getPluginManager().registerEvents(new ArenaJournalListener(this), this);
 
         // Register commands
         DuelsCommand duelsCommand = new DuelsCommand(this);
@@ -95,7 +114,7 @@ public final class Macebattles extends JavaPlugin implements Listener {
         Objects.requireNonNull(this.getCommand("bugreport")).setExecutor(bugReportCommand);
 
         // Register FriendsCommand
-        FriendsCommand friendsCommand = new FriendsCommand();
+        FriendsCommand friendsCommand = new FriendsCommand(timingWheel);
         Objects.requireNonNull(this.getCommand("friends")).setExecutor(friendsCommand);
         Objects.requireNonNull(this.getCommand("friends")).setTabCompleter(friendsCommand);
 
@@ -118,6 +137,11 @@ public final class Macebattles extends JavaPlugin implements Listener {
             getLogger().info("Saved " + entityCommandLinks.size() + " entity command links");
         }
 
+        // Stop watching the structures folder
+        if (mapManager != null) {
+            mapManager.shutdown();
+        }
+
         // Clear all queues on shutdown
         if (matchmakingListener != null) {
             matchmakingListener.clearAllQueues();
@@ -172,18 +196,26 @@ public final class Macebattles extends JavaPlugin implements Listener {
 
     public KitManager getKitManager() { return kitManager; }
 
+    public RatingCache getRatingCache() { return ratingCache; }
+
+    public TimingWheel getTimingWheel() { return timingWheel; }
+
+    public TickMonitor getTickMonitor() { return tickMonitor; }
+
     /**
-     * Gets a player's cached rating
+     * Gets a player's cached rating without blocking
+     * A stale or missing rating is refreshed in the background
      */
     public Integer getPlayerRating(UUID playerUUID) {
-        return playerRatings.get(playerUUID);
+        return ratingCache != null ? ratingCache.get(playerUUID) : null;
     }
 
     /**
      * Updates a player's cached rating
+     * @return true if the rating changed
      */
-    public void setPlayerRating(UUID playerUUID, int rating) {
-        playerRatings.put(playerUUID, rating);
+    public boolean setPlayerRating(UUID playerUUID, int rating) {
+        return ratingCache != null && ratingCache.put(playerUUID, rating);
     }
 
     // ========== Notification Cache Methods ==========
@@ -355,5 +387,6 @@ public final class Macebattles extends JavaPlugin implements Listener {
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         duelsMenu.handlePlayerJoin(event.getPlayer());
+        mapManager.handlePlayerJoin(event.getPlayer());
     }
 }
@@ -2,6 +2,7 @@ package net.pixelateddream.macebattles.commands;
 
 import net.pixelateddream.macebattles.Macebattles;
 import net.pixelateddream.macebattles.misc.MatchmakingListener;
+import net.pixelateddream.macebattles.util.TimingWheel;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -15,6 +16,8 @@ import java.util.*;
 public class DuelsCommand implements CommandExecutor, TabCompleter {
     private final Macebattles plugin;
     private final Map<UUID, DuelRequest> pendingDuels;
+    private final Map<UUID, TimingWheel.Timeout> duelExpirations = new HashMap<>(); // Target UUID -> invite expiry
+    private static final long DUEL_REQUEST_EXPIRY_TICKS = 60 * 20L; // 60 seconds
 
     public DuelsCommand(Macebattles plugin) {
         this.plugin = plugin;
@@ -103,7 +106,8 @@ public class DuelsCommand implements CommandExecutor, TabCompleter {
         target.sendMessage("§aType §e/duels accept §ato accept or §c/duels deny §ato decline");
 
         // Auto-expire after 60 seconds
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+        duelExpirations.put(target.getUniqueId(), plugin.getTimingWheel().schedule(() -> {
+            duelExpirations.remove(target.getUniqueId());
             if (pendingDuels.remove(target.getUniqueId()) != null) {
                 Player senderNow = Bukkit.getPlayer(request.senderUUID());
                 Player targetNow = Bukkit.getPlayer(request.targetUUID());
@@ -115,13 +119,13 @@ public class DuelsCommand implements CommandExecutor, TabCompleter {
                     targetNow.sendMessage("§cDuel request from " + sender.getName() + " expired");
                 }
             }
-        }, 60 * 20L); // 60 seconds
+        }, DUEL_REQUEST_EXPIRY_TICKS));
 
         return true;
     }
 
     private boolean handleAccept(Player accepter) {
-        DuelRequest request = pendingDuels.remove(accepter.getUniqueId());
+        DuelRequest request = removeDuelRequest(accepter.getUniqueId());
 
         if (request == null) {
             accepter.sendMessage("§cYou don't have any pending duel requests!");
@@ -165,8 +169,19 @@ public class DuelsCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    /**
+     * Removes a pending duel request and cancels its expiry
+     */
+    private DuelRequest removeDuelRequest(UUID targetUUID) {
+        TimingWheel.Timeout expiry = duelExpirations.remove(targetUUID);
+        if (expiry != null) {
+            expiry.cancel();
+        }
+        return pendingDuels.remove(targetUUID);
+    }
+
     private boolean handleDeny(Player denier) {
-        DuelRequest request = pendingDuels.remove(denier.getUniqueId());
+        DuelRequest request = removeDuelRequest(denier.getUniqueId());
 
         if (request == null) {
             denier.sendMessage("§cYou don't have any pending duel requests!");
@@ -186,7 +201,7 @@ public class DuelsCommand implements CommandExecutor, TabCompleter {
     private boolean handleQueue(Player player, String[] args) {
         MatchmakingListener listener = plugin.getMatchmakingListener();
 
-        if (listener == null || !listener.isConnected()) {
+        if (listener == null || !listener.isMatchmakingAvailable()) {
             player.sendMessage("§cMatchmaking server is not connected!");
             return true;
         }
@@ -225,7 +240,7 @@ public class DuelsCommand implements CommandExecutor, TabCompleter {
     private boolean handleCancelQueue(Player player) {
         MatchmakingListener listener = plugin.getMatchmakingListener();
 
-        if (listener == null || !listener.isConnected()) {
+        if (listener == null || !listener.isMatchmakingAvailable()) {
             player.sendMessage("§cMatchmaking server is not connected!");
             return true;
         }
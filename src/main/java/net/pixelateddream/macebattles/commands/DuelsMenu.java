@@ -30,11 +30,10 @@ public class DuelsMenu {
         Inventory menu = Bukkit.createInventory(null, 27, "§6§lDUELS MENU");
         MatchmakingListener listener = plugin.getMatchmakingListener();
         boolean isConnected = listener != null && listener.isConnected();
+        // Queue buttons also work through the local fallback matchmaker while the server is down
+        boolean canQueue = listener != null && listener.isMatchmakingAvailable();
 
-        if (isConnected) {
-            listener.requestPlayerRating(player.getUniqueId());
-        }
-
+        // Served from the rating cache, a stale rating is refreshed in the background
         int rating = getPlayerRating(player.getUniqueId());
         String rankGroup = getRankGroup(rating);
         String rankColor = getRankColor(rating);
@@ -80,7 +79,7 @@ public class DuelsMenu {
         menu.setItem(12, friendsItem);
 
         // Casual match (slot 14)
-        ItemStack casualItem = new ItemStack(isConnected ? Material.STONE_SWORD : Material.GRAY_DYE);
+        ItemStack casualItem = new ItemStack(canQueue ? Material.STONE_SWORD : Material.GRAY_DYE);
         ItemMeta casualMeta = casualItem.getItemMeta();
         assert casualMeta != null;
         if (isConnected) {
@@ -94,6 +93,17 @@ public class DuelsMenu {
                 "",
                 "§eClick to queue!"
             ));
+        } else if (canQueue) {
+            casualMeta.setDisplayName("§e§lCasual Match");
+            casualMeta.setLore(Arrays.asList(
+                "§7Play for fun!",
+                "",
+                "§e§lLocal matchmaking",
+                "§7Matchmaking server not connected,",
+                "§7only players on this server are matched",
+                "",
+                "§eClick to queue!"
+            ));
         } else {
             casualMeta.setDisplayName("§c§lCasual Match");
             casualMeta.setLore(Arrays.asList(
@@ -109,7 +119,7 @@ public class DuelsMenu {
         menu.setItem(14, casualItem);
 
         // Ranked match (slot 16)
-        ItemStack rankedItem = new ItemStack(isConnected ? Material.NETHERITE_SWORD : Material.GRAY_DYE);
+        ItemStack rankedItem = new ItemStack(canQueue ? Material.NETHERITE_SWORD : Material.GRAY_DYE);
         ItemMeta rankedMeta = rankedItem.getItemMeta();
         assert rankedMeta != null;
         if (isConnected) {
@@ -123,6 +133,17 @@ public class DuelsMenu {
                 "",
                 "§6Click to queue!"
             ));
+        } else if (canQueue) {
+            rankedMeta.setDisplayName("§6§lRanked Match");
+            rankedMeta.setLore(Arrays.asList(
+                "§7Competitive play!",
+                "",
+                "§e§lLocal matchmaking",
+                "§7Matchmaking server not connected,",
+                "§7rating updates are submitted later",
+                "",
+                "§6Click to queue!"
+            ));
         } else {
             rankedMeta.setDisplayName("§c§lRanked Match");
             rankedMeta.setLore(Arrays.asList(
@@ -145,7 +166,7 @@ public class DuelsMenu {
     /**
      * Gets the player's current rating
      * Returns cached rating or default 1000 if not yet fetched from server
-     * Rating is requested from server when menu opens and cached asynchronously
+     * Ratings are prefetched on join and refreshed in the background once stale
      */
     private int getPlayerRating(UUID playerUUID) {
         Integer cachedRating = plugin.getPlayerRating(playerUUID);
@@ -190,7 +211,7 @@ public class DuelsMenu {
 
         Material type = clickedItem.getType();
         MatchmakingListener listener = plugin.getMatchmakingListener();
-        boolean isConnected = listener != null && listener.isConnected();
+        boolean isConnected = listener != null && listener.isMatchmakingAvailable();
 
         // Casual queue (slot 14)
         if (slot == 14) {
@@ -1,6 +1,7 @@
 package net.pixelateddream.macebattles.commands;
 
 import net.pixelateddream.macebattles.player.friend.FriendsManager;
+import net.pixelateddream.macebattles.util.TimingWheel;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -17,8 +18,8 @@ import java.util.List;
 public class FriendsCommand implements CommandExecutor, TabCompleter {
     private final FriendsManager friendsManager;
 
-    public FriendsCommand() {
-        this.friendsManager = new FriendsManager();
+    public FriendsCommand(TimingWheel timingWheel) {
+        this.friendsManager = new FriendsManager(timingWheel);
     }
 
     @Override
@@ -1,22 +1,111 @@
 package net.pixelateddream.macebattles.commands;
 
 import net.pixelateddream.macebattles.Macebattles;
+import net.pixelateddream.macebattles.match.ArenaGrid;
+import net.pixelateddream.macebattles.match.ArenaPool;
+import net.pixelateddream.macebattles.matchmaking.ConnectionMetrics;
+import net.pixelateddream.macebattles.matchmaking.MessageType;
+import net.pixelateddream.macebattles.matchmaking.OutboundScheduler;
+import net.pixelateddream.macebattles.misc.MatchmakingListener;
+import net.pixelateddream.macebattles.util.ChunkLoader;
+import net.pixelateddream.macebattles.util.LatencyHistogram;
+import net.pixelateddream.macebattles.util.TickMonitor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.IntSummaryStatistics;
+
 public record MbBuildCommand(Macebattles plugin) implements CommandExecutor {
 
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
-        if (!(sender instanceof Player) || sender.isOp()) {
-            sender.sendMessage("§7Macebattles Build: §e" + plugin.getBuildNumber());
-        } else {
+        if (sender instanceof Player && !sender.isOp()) {
             sender.sendMessage("§cYou do not have permission to use this command.");
+            return true;
+        }
+
+        if (args.length > 0 && args[0].equalsIgnoreCase("metrics")) {
+            sendMetrics(sender);
+        } else {
+            sender.sendMessage("§7Macebattles Build: §e" + plugin.getBuildNumber());
         }
         return true;
     }
-}
 
+    /**
+     * Shows matchmaker link health
+     */
+    private void sendMetrics(CommandSender sender) {
+        MatchmakingListener listener = plugin.getMatchmakingListener();
+        if (listener == null) {
+            sender.sendMessage("§cMatchmaking system is not available!");
+            return;
+        }
+
+        ConnectionMetrics.Snapshot m = listener.getMetricsSnapshot();
+        sender.sendMessage("§6§lMatchmaker Metrics §7(node " + listener.getNodeId() + ")");
+        sender.sendMessage("§7Status: " + (m.connected() ? "§aconnected §7for §e" + (m.connectedForMillis() / 1000) + "s" : "§cdisconnected")
+                + " §7| Reconnects: §e" + m.reconnects() + " §7| Disconnects: §e" + m.disconnects());
+        sender.sendMessage(String.format("§7RTT: §emean %.1fms §7p50 §e%.1fms §7p99 §e%.1fms §7max §e%.1fms",
+                m.rttMeanMillis(), m.rttP50Millis(), m.rttP99Millis(), m.rttMaxMillis()));
+        sender.sendMessage("§7Pings: §e" + m.pings() + " §7lost §e" + m.pingsLost() + " §7in flight §e" + m.pingsInFlight()
+                + (m.millisSinceLastPong() >= 0 ? " §7last pong §e" + (m.millisSinceLastPong() / 1000) + "s ago" : ""));
+        sender.sendMessage("§7Transport: §e" + listener.getTransportName()
+                + " §7| Wire format: §e" + listener.getWireFormat().getName()
+                + (listener.isCompressionActive() ? " §7+ §epermessage-deflate" : ""));
+        sender.sendMessage(String.format("§7Frames: §ein %.1f/s §7out §e%.1f/s §7(total §e%d§7/§e%d§7, §e%d§7/§e%d KiB§7)",
+                m.framesInPerSecond(), m.framesOutPerSecond(), m.framesIn(), m.framesOut(), m.bytesIn() / 1024, m.bytesOut() / 1024));
+        sender.sendMessage(String.format("§7Queue wait: §e%d §7matches, mean §e%.1fs §7p50 §e%.1fs §7p99 §e%.1fs",
+                m.matchesFound(), m.queueWaitMeanMillis() / 1000.0, m.queueWaitP50Millis() / 1000.0, m.queueWaitP99Millis() / 1000.0));
+        sender.sendMessage("§7Queue drift: §elast " + m.lastQueueDrift() + " §7| reconciliations §e" + m.reconciliations()
+                + " §7re-queued §e" + m.requeuedPlayers() + " §7ghosts cancelled §e" + m.ghostsCancelled());
+        OutboundScheduler outbound = listener.getOutbound();
+        sender.sendMessage("§7Outbound: §e" + outbound.size() + " §7buffered (max §e" + outbound.getMaxDepth() + "§7), §e"
+                + outbound.getFramesBuilt() + " §7frames, §e" + outbound.getBatchedMessages() + " §7batched, §e"
+                + outbound.getDropped() + " §7dropped, §e" + outbound.getRejected() + " §7rejected, §e"
+                + outbound.getCongestedTicks() + " §7congested ticks");
+        sender.sendMessage("§7Pending requests: §e" + listener.getPendingRequestCount()
+                + " §7| Inbound depth: §e" + listener.getInboundQueue().getDepth()
+                + " §7| Unconfirmed results: §e" + listener.getPendingResultCount());
+        TickMonitor tickMonitor = plugin.getTickMonitor();
+        sender.sendMessage(String.format("§7Node: §e%d §7free slots, %s§7, tick interval §e%.1fms",
+                listener.getFreeArenaSlots(),
+                tickMonitor.isMsptMeasured() ? String.format("§e%.1f §7mspt", tickMonitor.getMspt()) : "§7mspt not reported",
+                tickMonitor.getTickIntervalMillis()));
+
+        // Warm arena pools
+        int inUse = 0, idle = 0;
+        long hits = 0, misses = 0;
+        for (ArenaPool pool : plugin.getMapManager().getPools()) {
+            inUse += pool.getInUseCount();
+            idle += pool.getIdleCount();
+            hits += pool.getHits();
+            misses += pool.getMisses();
+        }
+        sender.sendMessage("§7Arena pools: §e" + inUse + " §7in use, §e" + idle + " §7idle | reused §e" + hits
+                + " §7placed on demand §e" + misses);
+        long resets = plugin.getMapManager().getResetCount();
+        sender.sendMessage(String.format("§7Arena resets: §e%d §7from journal, §e%.1f §7blocks restored on average",
+                resets, resets > 0 ? (double) plugin.getMapManager().getRestoredBlockCount() / resets : 0.0));
+        ArenaGrid grid = plugin.getMapManager().getGrid();
+        sender.sendMessage(String.format("§7Arena grid: §e%d §7of §e%d §7slots occupied (§e%.0f%%§7), slots §e%d §7blocks wide, §e%d §7being cleared",
+                grid.getOccupiedCount(), grid.getHighWater(), grid.getOccupancy() * 100, grid.getPitch(),
+                plugin.getMapManager().getPendingTeardownCount()));
+        IntSummaryStatistics tickets = plugin.getMapManager().getChunkTicketStats();
+        sender.sendMessage(String.format("§7Chunk tickets: §e%d §7chunks over §e%d §7arenas, §e%.1f §7avg §e%d §7max per arena%s",
+                tickets.getSum(), tickets.getCount(), tickets.getAverage(), tickets.getCount() > 0 ? tickets.getMax() : 0,
+                ChunkLoader.isAsyncSupported() ? "" : " §7(sync loading)"));
+
+        // Handler time per message type
+        for (MessageType type : MessageType.values()) {
+            LatencyHistogram latency = listener.getDispatcher().getLatency(type);
+            if (latency.getCount() > 0) {
+                sender.sendMessage(String.format("§7  %s: §e%d §7handled, mean §e%.3fms §7p99 §e%.3fms",
+                        type.getWireName(), latency.getCount(), latency.getMeanMillis(), latency.getPercentileMillis(99)));
+            }
+        }
+    }
+}
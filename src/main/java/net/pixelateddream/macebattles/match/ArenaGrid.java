@@ -0,0 +1,105 @@
+package net.pixelateddream.macebattles.match;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.util.BlockVector;
+
+import java.util.BitSet;
+
+/**
+ * Deterministic placement grid for arenas
+ * Slots are square, chunk aligned and laid out row by row from the origin. Each slot fits the largest map
+ * plus a gap wider than the view distance, so players never see a neighbouring arena. Freed slots are
+ * reused lowest index first, which keeps arenas packed on chunks that have already been generated.
+ * Only used from the main thread.
+ */
+public class ArenaGrid {
+    private final int originX;
+    private final int originY;
+    private final int originZ;
+    private final int columns;
+    private final int pitch; // Slot width in blocks, a multiple of 16
+    private final int gap; // Minimum free blocks between two arenas
+    private final BitSet occupied = new BitSet(); // Free list: clear bits are free slots
+    private int highWater = 0; // Number of slots ever handed out
+
+    /**
+     * @param columns Slots per row
+     * @param maxFootprint Largest map width or depth in blocks
+     * @param gap Minimum free blocks between neighbouring arenas
+     */
+    public ArenaGrid(int originX, int originY, int originZ, int columns, int maxFootprint, int gap) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.columns = Math.max(1, columns);
+        this.gap = Math.max(0, gap);
+        this.pitch = ((Math.max(1, maxFootprint) + this.gap + 15) / 16) * 16;
+    }
+
+    /**
+     * Takes the lowest free slot
+     */
+    public int allocate() {
+        int slot = occupied.nextClearBit(0);
+        occupied.set(slot);
+        highWater = Math.max(highWater, slot + 1);
+        return slot;
+    }
+
+    public void release(int slot) {
+        if (slot >= 0) {
+            occupied.clear(slot);
+        }
+    }
+
+    /**
+     * Gets where a structure of the given size is placed in a slot, centered so the gap is even on all sides
+     */
+    public Location getBaseLocation(World world, int slot, BlockVector size) {
+        int slotX = originX + (slot % columns) * pitch;
+        int slotZ = originZ + (slot / columns) * pitch;
+        int offsetX = Math.max(0, (pitch - size.getBlockX()) / 2);
+        int offsetZ = Math.max(0, (pitch - size.getBlockZ()) / 2);
+        return new Location(world, slotX + offsetX, originY, slotZ + offsetZ);
+    }
+
+    /**
+     * Gets the slot a block column falls in
+     * @return The slot, or -1 if the position is outside the grid
+     */
+    public int getSlotAt(int x, int z) {
+        int dx = x - originX;
+        int dz = z - originZ;
+        if (dx < 0 || dz < 0 || dx / pitch >= columns) {
+            return -1;
+        }
+        return (dz / pitch) * columns + dx / pitch;
+    }
+
+    /**
+     * Checks whether a structure keeps the full gap to its neighbours in a slot
+     */
+    public boolean fits(BlockVector size) {
+        return size.getBlockX() + gap <= pitch && size.getBlockZ() + gap <= pitch;
+    }
+
+    public int getOccupiedCount() {
+        return occupied.cardinality();
+    }
+
+    public int getHighWater() {
+        return highWater;
+    }
+
+    /**
+     * Gets the share of slots up to the high-water mark that are in use (1.0 = no holes)
+     */
+    public double getOccupancy() {
+        return highWater == 0 ? 0.0 : (double) getOccupiedCount() / highWater;
+    }
+
+    public int getPitch() {
+        return pitch;
+    }
+}
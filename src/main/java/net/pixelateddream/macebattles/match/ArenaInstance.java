@@ -1,17 +1,37 @@
 package net.pixelateddream.macebattles.match;
 
+import net.pixelateddream.macebattles.util.ChunkLoader;
+import net.pixelateddream.macebattles.util.LongHashSet;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.util.BlockVector;
+import org.bukkit.util.BoundingBox;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class ArenaInstance {
     private final String id;
+    private final String mapName;
     private final Location baseLocation;
+    private final BlockVector size; // Size of the placed structure
+    private final int slot; // Arena grid slot, -1 if not placed on the grid
     private final Map<Integer, Location> spawnPoints;
+    private final List<Long> ticketedChunks = new ArrayList<>(); // Chunks this arena holds a plugin ticket on (packed x/z)
+    private final LongHashSet journal = new LongHashSet(); // Block positions changed since the last reset (packed)
+    private int uses = 0; // Matches played in this arena since it was placed
 
-    public ArenaInstance(String id, Location baseLocation) {
+    public ArenaInstance(String id, String mapName, Location baseLocation, BlockVector size, int slot) {
         this.id = id;
+        this.mapName = mapName;
+        this.slot = slot;
         this.baseLocation = baseLocation;
+        this.size = size;
         this.spawnPoints = new HashMap<>();
     }
 
@@ -27,8 +47,118 @@ public class ArenaInstance {
         return id;
     }
 
+    public String getMapName() {
+        return mapName;
+    }
+
     public Location getBaseLocation() {
         return baseLocation;
     }
 
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Gets the block area the structure occupies
+     */
+    public BoundingBox getBounds() {
+        return BoundingBox.of(baseLocation, baseLocation.clone().add(size));
+    }
+
+    /**
+     * Checks whether a block position is inside the placed structure
+     */
+    public boolean contains(int x, int y, int z) {
+        int dx = x - baseLocation.getBlockX();
+        int dy = y - baseLocation.getBlockY();
+        int dz = z - baseLocation.getBlockZ();
+        return dx >= 0 && dy >= 0 && dz >= 0 && dx < size.getBlockX() && dy < size.getBlockY() && dz < size.getBlockZ();
+    }
+
+    /**
+     * Records that a block is about to change, so the next reset restores it
+     * Blocks outside the arena are ignored.
+     */
+    public void recordChange(Block block) {
+        if (contains(block.getX(), block.getY(), block.getZ())) {
+            journal.add(LongHashSet.packBlock(block.getX(), block.getY(), block.getZ()));
+        }
+    }
+
+    /**
+     * Gets the positions changed since the last reset (packed, see {@link LongHashSet#packBlock})
+     */
+    public LongHashSet getJournal() {
+        return journal;
+    }
+
+    /**
+     * Records a finished match in this arena
+     * @return Matches played here since it was placed
+     */
+    public int recordUse() {
+        return ++uses;
+    }
+
+    /**
+     * Loads the chunks under the arena and holds a plugin ticket on each, so they stay loaded while the arena exists
+     * Chunks are loaded asynchronously where the server supports it.
+     * @return Completed on the main thread once every chunk is loaded and ticketed
+     */
+    public CompletableFuture<Void> holdChunks(Plugin plugin) {
+        BoundingBox bounds = getBounds();
+        return ChunkLoader.loadArea(plugin, baseLocation.getWorld(), minChunk(bounds.getMinX()), minChunk(bounds.getMinZ()),
+                maxChunk(bounds.getMaxX()), maxChunk(bounds.getMaxZ())).thenRun(() -> addTickets(plugin));
+    }
+
+    /**
+     * Holds the arena's chunk tickets right away, loading any missing chunks synchronously
+     * Only for arenas needed this tick, prefer {@link #holdChunks(Plugin)}.
+     */
+    public void holdChunksNow(Plugin plugin) {
+        addTickets(plugin);
+    }
+
+    private void addTickets(Plugin plugin) {
+        World world = baseLocation.getWorld();
+        BoundingBox bounds = getBounds();
+        for (int x = minChunk(bounds.getMinX()); x <= maxChunk(bounds.getMaxX()); x++) {
+            for (int z = minChunk(bounds.getMinZ()); z <= maxChunk(bounds.getMaxZ()); z++) {
+                if (world.addPluginChunkTicket(x, z, plugin)) {
+                    ticketedChunks.add(((long) x << 32) | (z & 0xFFFFFFFFL));
+                }
+            }
+        }
+    }
+
+    private static int minChunk(double block) {
+        return (int) Math.floor(block) >> 4;
+    }
+
+    private static int maxChunk(double block) {
+        // Bounds are exclusive on the max side
+        return ((int) Math.ceil(block) - 1) >> 4;
+    }
+
+    /**
+     * Drops the arena's chunk tickets so the server can unload its chunks
+     */
+    public void releaseChunks(Plugin plugin) {
+        World world = baseLocation.getWorld();
+        if (world != null) {
+            for (long key : ticketedChunks) {
+                world.removePluginChunkTicket((int) (key >> 32), (int) key, plugin);
+            }
+        }
+        ticketedChunks.clear();
+    }
+
+    /**
+     * Gets how many chunks this arena keeps loaded
+     */
+    public int getTicketedChunkCount() {
+        return ticketedChunks.size();
+    }
+
 }
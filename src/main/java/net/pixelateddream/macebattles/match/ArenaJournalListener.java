@@ -0,0 +1,219 @@
+package net.pixelateddream.macebattles.match;
+
+import net.pixelateddream.macebattles.Macebattles;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.Bisected;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockIgniteEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+
+import java.util.List;
+
+/**
+ * Feeds each arena's block-change journal from block and explosion events inside its bounds
+ * Runs at MONITOR and skips cancelled events, so only changes that actually happen are recorded.
+ * Blocks that pop off when what they hang on is removed (torches, buttons, carpets, rails, sugar cane)
+ * fire no event of their own, so removals also record the neighbours of each removed block.
+ */
+public class ArenaJournalListener implements Listener {
+    private static final BlockFace[] NEIGHBOURS = {
+            BlockFace.UP, BlockFace.DOWN, BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST
+    };
+    private static final int MAX_STACK = 32; // Longest column of stacked plants or hanging blocks followed up or down
+
+    private final Macebattles plugin;
+
+    public ArenaJournalListener(Macebattles plugin) {
+        this.plugin = plugin;
+    }
+
+    private void record(Block block) {
+        ArenaInstance arena = plugin.getMapManager().getArenaAt(block);
+        if (arena == null) {
+            return;
+        }
+        arena.recordChange(block);
+
+        // Doors and tall plants change both halves
+        if (block.getBlockData() instanceof Bisected bisected) {
+            arena.recordChange(block.getRelative(bisected.getHalf() == Bisected.Half.TOP ? BlockFace.DOWN : BlockFace.UP));
+        }
+    }
+
+    /**
+     * Records a removed block and everything that may drop with it
+     */
+    private void recordRemoved(Block block) {
+        if (plugin.getMapManager().getArenaAt(block) == null) {
+            return; // Neighbours at the edge are still checked one by one in record()
+        }
+        record(block);
+        for (BlockFace face : NEIGHBOURS) {
+            Block neighbour = block.getRelative(face);
+            if (neighbour.getType().isAir()) {
+                continue;
+            }
+            record(neighbour);
+            if (face == BlockFace.UP || face == BlockFace.DOWN) {
+                recordStack(neighbour, face);
+            }
+        }
+    }
+
+    /**
+     * Follows a column of non-full blocks (sugar cane, bamboo, vines, dripstone) that breaks as a whole
+     */
+    private void recordStack(Block start, BlockFace direction) {
+        Block block = start;
+        for (int i = 0; i < MAX_STACK && !block.getType().isOccluding(); i++) {
+            block = block.getRelative(direction);
+            if (block.getType().isAir()) {
+                return;
+            }
+            record(block);
+        }
+    }
+
+    private void recordAllRemoved(List<Block> blocks) {
+        for (Block block : blocks) {
+            recordRemoved(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        recordRemoved(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        if (event instanceof BlockMultiPlaceEvent multiPlace) {
+            for (BlockState state : multiPlace.getReplacedBlockStates()) {
+                record(state.getBlock());
+            }
+            return;
+        }
+        record(event.getBlock());
+    }
+
+    /**
+     * Explosions, including wind charges toggling doors, trapdoors and buttons
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        recordAllRemoved(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        record(event.getBlock());
+        recordAllRemoved(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInteract(PlayerInteractEvent event) {
+        Block block = event.getClickedBlock();
+        if (block == null) {
+            return;
+        }
+        // Opening doors, pressing buttons, trampling farmland
+        if ((event.getAction() == Action.RIGHT_CLICK_BLOCK && block.getType().isInteractable())
+                || event.getAction() == Action.PHYSICAL) {
+            record(block);
+        }
+    }
+
+    /**
+     * Buckets place and take fluids without a block place or break event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketEmpty(PlayerBucketEmptyEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketFill(PlayerBucketFillEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBurn(BlockBurnEvent event) {
+        recordRemoved(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIgnite(BlockIgniteEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFade(BlockFadeEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onForm(BlockFormEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSpread(BlockSpreadEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFlow(BlockFromToEvent event) {
+        record(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        record(event.getBlock());
+        record(event.getBlock().getRelative(event.getDirection()));
+        for (Block block : event.getBlocks()) {
+            record(block);
+            record(block.getRelative(event.getDirection()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        record(event.getBlock());
+        record(event.getBlock().getRelative(event.getDirection().getOppositeFace()));
+        for (Block block : event.getBlocks()) {
+            record(block);
+            record(block.getRelative(event.getDirection()));
+        }
+    }
+}
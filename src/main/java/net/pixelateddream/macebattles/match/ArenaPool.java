@@ -0,0 +1,182 @@
+package net.pixelateddream.macebattles.match;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pre-placed arenas for one map, checked out by matches and returned when they end
+ * The pool's target size follows the peak number of arenas in use over a recent window, so arenas are
+ * already standing when demand rises. Only used from the main thread.
+ */
+public class ArenaPool {
+    private final String mapName;
+    private final ArrayDeque<ArenaInstance> idle = new ArrayDeque<>();
+    private final Set<String> current = new HashSet<>(); // Arenas placed from the current map version
+    private final int[] recentPeaks; // Peak arenas in use per maintenance interval, ring buffer
+    private int peakIndex = 0;
+    private long mapVersion; // Modification time of the map file the arenas were placed from
+    private int inUse = 0;
+    private int placing = 0; // Arenas whose chunks are still loading before placement
+
+    // Counters
+    private long hits = 0; // Checkouts served by an idle arena
+    private long misses = 0; // Checkouts that had to place a new arena
+
+    /**
+     * @param windowIntervals Number of maintenance intervals the demand peak looks back over
+     */
+    public ArenaPool(String mapName, long mapVersion, int windowIntervals) {
+        this.mapName = mapName;
+        this.mapVersion = mapVersion;
+        this.recentPeaks = new int[Math.max(1, windowIntervals)];
+    }
+
+    /**
+     * Checks out an idle arena
+     * @return The arena, or null if none is idle (the caller places one and reports it with {@link #placedForCheckout})
+     */
+    public ArenaInstance poll() {
+        ArenaInstance arena = idle.pollFirst();
+        if (arena != null) {
+            hits++;
+            checkedOut();
+        }
+        return arena;
+    }
+
+    /**
+     * Records an arena placed on demand because the pool was empty
+     */
+    public void placedForCheckout(ArenaInstance arena) {
+        current.add(arena.getId());
+        misses++;
+        checkedOut();
+    }
+
+    private void checkedOut() {
+        inUse++;
+        recentPeaks[peakIndex] = Math.max(recentPeaks[peakIndex], inUse);
+    }
+
+    /**
+     * Returns an arena after its match
+     * @return false if the arena is from an older map version and must be destroyed instead
+     */
+    public boolean release(ArenaInstance arena) {
+        inUse = Math.max(0, inUse - 1);
+        if (!current.contains(arena.getId())) {
+            return false;
+        }
+        idle.addLast(arena);
+        return true;
+    }
+
+    /**
+     * Adds an arena placed ahead of demand
+     */
+    public void addIdle(ArenaInstance arena) {
+        current.add(arena.getId());
+        idle.addLast(arena);
+    }
+
+    /**
+     * Records that an arena for this pool is waiting on its chunks, so it counts towards the pool size
+     */
+    public void placementStarted() {
+        placing++;
+    }
+
+    /**
+     * Records that a pending placement finished or was given up
+     */
+    public void placementFinished() {
+        placing = Math.max(0, placing - 1);
+    }
+
+    /**
+     * Takes an idle arena out of the pool for destruction
+     * @return The arena, or null if none is idle
+     */
+    public ArenaInstance removeIdle() {
+        ArenaInstance arena = idle.pollLast();
+        if (arena != null) {
+            current.remove(arena.getId());
+        }
+        return arena;
+    }
+
+    /**
+     * Switches to a new map version
+     * @return Idle arenas of the old version, to be destroyed (arenas in use are destroyed on release)
+     */
+    public List<ArenaInstance> changeVersion(long newVersion) {
+        mapVersion = newVersion;
+        current.clear();
+        List<ArenaInstance> stale = new ArrayList<>(idle);
+        idle.clear();
+        return stale;
+    }
+
+    /**
+     * Starts the next maintenance interval, the oldest peak drops out of the window
+     */
+    public void rotate() {
+        peakIndex = (peakIndex + 1) % recentPeaks.length;
+        recentPeaks[peakIndex] = inUse;
+    }
+
+    /**
+     * Gets how many arenas the pool should hold (in use plus idle)
+     * @param minIdle Idle arenas kept even without demand
+     * @param maxSize Upper bound for the pool
+     * @param headroom Extra capacity above the recent peak, as a fraction
+     */
+    public int getTargetSize(int minIdle, int maxSize, double headroom) {
+        int peak = 0;
+        for (int value : recentPeaks) {
+            peak = Math.max(peak, value);
+        }
+        return Math.min(maxSize, (int) Math.ceil(peak * (1.0 + headroom)) + minIdle);
+    }
+
+    public String getMapName() {
+        return mapName;
+    }
+
+    public long getMapVersion() {
+        return mapVersion;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getInUseCount() {
+        return inUse;
+    }
+
+    public int getSize() {
+        return inUse + idle.size() + placing;
+    }
+
+    public int getPlacingCount() {
+        return placing;
+    }
+
+    public Collection<ArenaInstance> getIdleArenas() {
+        return Collections.unmodifiableCollection(idle);
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,96 @@
+package net.pixelateddream.macebattles.match;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.util.BoundingBox;
+
+/**
+ * Clears an arena's placed bounds back to air, a slice at a time
+ * Walks the bounds column by column and resumes where it stopped, so a large map is cleared over
+ * several ticks instead of stalling one. Only used from the main thread.
+ */
+public class ArenaTeardown {
+    private static final int BLOCKS_PER_CLOCK_CHECK = 256; // Blocks visited between deadline checks
+
+    private final ArenaInstance arena;
+    private final World world;
+    private final int minX, minY, minZ;
+    private final int maxX, maxY, maxZ; // Inclusive
+    private int x, y, z; // Next block to visit
+    private long cleared = 0; // Blocks set to air
+    private long visited = 0; // Blocks looked at, including ones already air
+
+    public ArenaTeardown(ArenaInstance arena) {
+        this.arena = arena;
+        this.world = arena.getBaseLocation().getWorld();
+        BoundingBox bounds = arena.getBounds();
+        this.minX = (int) Math.floor(bounds.getMinX());
+        this.minY = (int) Math.floor(bounds.getMinY());
+        this.minZ = (int) Math.floor(bounds.getMinZ());
+        this.maxX = (int) Math.ceil(bounds.getMaxX()) - 1;
+        this.maxY = (int) Math.ceil(bounds.getMaxY()) - 1;
+        this.maxZ = (int) Math.ceil(bounds.getMaxZ()) - 1;
+        this.x = minX;
+        this.y = minY;
+        this.z = minZ;
+    }
+
+    /**
+     * Clears blocks until the deadline passes or the bounds are done
+     * @param deadlineNanos System.nanoTime() value to stop at
+     * @return true once every block is cleared
+     */
+    public boolean step(long deadlineNanos) {
+        if (world == null) {
+            return true;
+        }
+        int sinceCheck = 0;
+        while (!isDone()) {
+            Block block = world.getBlockAt(x, y, z);
+            if (!block.getType().isAir()) {
+                block.setType(Material.AIR, false);
+                cleared++;
+            }
+            visited++;
+            advance();
+
+            if (++sinceCheck >= BLOCKS_PER_CLOCK_CHECK) {
+                sinceCheck = 0;
+                if (System.nanoTime() >= deadlineNanos) {
+                    break;
+                }
+            }
+        }
+        return isDone();
+    }
+
+    private void advance() {
+        // y innermost keeps each step inside one chunk column for as long as possible
+        if (++y <= maxY) {
+            return;
+        }
+        y = minY;
+        if (++z <= maxZ) {
+            return;
+        }
+        z = minZ;
+        x++;
+    }
+
+    public boolean isDone() {
+        return x > maxX;
+    }
+
+    public ArenaInstance getArena() {
+        return arena;
+    }
+
+    public long getCleared() {
+        return cleared;
+    }
+
+    public long getVisited() {
+        return visited;
+    }
+}
@@ -0,0 +1,247 @@
+package net.pixelateddream.macebattles.match;
+
+import net.pixelateddream.macebattles.misc.MatchmakingListener.QueueType;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.util.BlockVector;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Immutable snapshot of the playable maps and how often each is picked
+ * Built from the structure cache plus an optional sidecar file per map (e.g. castle.yml next to castle.nbt):
+ * <pre>
+ * weight: 2.0          # Relative selection weight, 0 disables the map
+ * queue-types: [ranked] # Queues the map is used for, all if omitted
+ * </pre>
+ * A new catalog is built on every change and swapped in whole, so readers never lock.
+ */
+public final class MapCatalog {
+    private static final String SIDECAR_EXTENSION = ".yml";
+    private static final int RECENT_RETRIES = 8; // Alias samples tried before falling back to a scan that skips recent maps
+
+    /**
+     * A playable map
+     * @param size Structure size in blocks
+     * @param spawnCount Number of vault spawn points, 0 if the default spawns are used
+     * @param queueTypes Queues the map can be picked for
+     * @param weight Relative selection weight within each queue
+     */
+    public record Entry(String name, BlockVector size, int spawnCount, Set<QueueType> queueTypes, double weight) {
+    }
+
+    public static final MapCatalog EMPTY = new MapCatalog(List.of());
+
+    private final Map<String, Entry> entries; // Name -> entry, sorted by name
+    private final List<String> names;
+    private final AliasTable anyQueue; // Every map with a positive weight
+    private final Map<QueueType, AliasTable> byQueue;
+
+    private MapCatalog(List<Entry> sorted) {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (Entry entry : sorted) {
+            entries.put(entry.name(), entry);
+        }
+        this.entries = Collections.unmodifiableMap(entries);
+        this.names = List.copyOf(entries.keySet());
+
+        this.anyQueue = new AliasTable(sorted.stream().filter(entry -> entry.weight() > 0).toList());
+        Map<QueueType, AliasTable> byQueue = new EnumMap<>(QueueType.class);
+        for (QueueType type : QueueType.values()) {
+            byQueue.put(type, new AliasTable(sorted.stream()
+                    .filter(entry -> entry.weight() > 0 && entry.queueTypes().contains(type)).toList()));
+        }
+        this.byQueue = Collections.unmodifiableMap(byQueue);
+    }
+
+    /**
+     * Builds a catalog from the cached maps and their sidecar files
+     * @param directory The structures folder holding the sidecar files
+     * @param fits Checks whether a map's size can be placed, maps that can't get a weight of 0
+     */
+    public static MapCatalog build(StructureCache cache, File directory, Logger logger, Predicate<BlockVector> fits) {
+        List<Entry> entries = new ArrayList<>();
+        for (String name : cache.getMapNames()) {
+            StructureCache.CachedMap map = cache.get(name);
+            if (map == null) {
+                continue; // Removed since the names were listed
+            }
+
+            double weight = 1.0;
+            Set<QueueType> queueTypes = EnumSet.allOf(QueueType.class);
+            File sidecar = new File(directory, name + SIDECAR_EXTENSION);
+            if (sidecar.isFile()) {
+                YamlConfiguration config = YamlConfiguration.loadConfiguration(sidecar);
+                weight = Math.max(0.0, config.getDouble("weight", 1.0));
+                if (config.isList("queue-types")) {
+                    queueTypes = EnumSet.noneOf(QueueType.class);
+                    for (String value : config.getStringList("queue-types")) {
+                        try {
+                            queueTypes.add(QueueType.valueOf(value.toUpperCase(Locale.ROOT)));
+                        } catch (IllegalArgumentException e) {
+                            logger.warning("Unknown queue type '" + value + "' in " + sidecar.getName());
+                        }
+                    }
+                }
+            }
+
+            BlockVector size = map.structure().getSize();
+            if (weight > 0 && !fits.test(size)) {
+                logger.warning("Map " + name + " is larger than the arena grid slots, it won't be picked until a restart");
+                weight = 0.0;
+            }
+
+            entries.add(new Entry(name, size, map.spawnOffsets().size(),
+                    Collections.unmodifiableSet(queueTypes), weight));
+        }
+        return new MapCatalog(entries);
+    }
+
+    /**
+     * Picks a weighted random map, avoiding recently played ones when another map is available
+     * @param queueType The queue the match is for, or null for any queue
+     * @param recent Maps to avoid
+     * @return The map name, or null if no map is available for the queue
+     */
+    public String select(QueueType queueType, Collection<String> recent, Random random) {
+        AliasTable table = queueType != null ? byQueue.get(queueType) : anyQueue;
+        if (table.isEmpty()) {
+            return null;
+        }
+
+        for (int attempt = 0; attempt < RECENT_RETRIES; attempt++) {
+            Entry entry = table.sample(random);
+            if (!recent.contains(entry.name())) {
+                return entry.name();
+            }
+        }
+
+        // Recent maps hold most of the weight, pick among the rest directly
+        Entry fallback = table.sampleExcluding(recent, random);
+        return fallback != null ? fallback.name() : table.sample(random).name();
+    }
+
+    public Entry get(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Gets the names of all maps in the catalog, sorted
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Walker's alias method: O(1) weighted sampling after O(n) setup
+     */
+    private static final class AliasTable {
+        private final List<Entry> entries;
+        private final double[] probability; // Chance of keeping column i instead of taking its alias
+        private final int[] alias;
+
+        AliasTable(List<Entry> entries) {
+            this.entries = entries;
+            int n = entries.size();
+            this.probability = new double[n];
+            this.alias = new int[n];
+            if (n == 0) {
+                return;
+            }
+
+            double total = 0;
+            for (Entry entry : entries) {
+                total += entry.weight();
+            }
+
+            // Scale weights so the average column is 1.0, then pair underfull columns with overfull ones (Vose)
+            double[] scaled = new double[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = entries.get(i).weight() * n / total;
+                if (scaled[i] < 1.0) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+                if (scaled[more] < 1.0) {
+                    small[smallCount++] = more;
+                } else {
+                    large[largeCount++] = more;
+                }
+            }
+            // Leftovers are full columns, up to rounding error
+            while (largeCount > 0) {
+                probability[large[--largeCount]] = 1.0;
+            }
+            while (smallCount > 0) {
+                probability[small[--smallCount]] = 1.0;
+            }
+        }
+
+        boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        Entry sample(Random random) {
+            int column = random.nextInt(entries.size());
+            return entries.get(random.nextDouble() < probability[column] ? column : alias[column]);
+        }
+
+        /**
+         * Linear weighted pick over the entries not in the excluded set
+         * @return The entry, or null if every entry is excluded
+         */
+        Entry sampleExcluding(Collection<String> excluded, Random random) {
+            double total = 0;
+            for (Entry entry : entries) {
+                if (!excluded.contains(entry.name())) {
+                    total += entry.weight();
+                }
+            }
+            if (total <= 0) {
+                return null;
+            }
+
+            double target = random.nextDouble() * total;
+            Entry last = null;
+            for (Entry entry : entries) {
+                if (excluded.contains(entry.name())) {
+                    continue;
+                }
+                last = entry;
+                target -= entry.weight();
+                if (target < 0) {
+                    return entry;
+                }
+            }
+            return last;
+        }
+    }
+}
@@ -1,30 +1,64 @@
 package net.pixelateddream.macebattles.match;
 
 import net.pixelateddream.macebattles.Macebattles;
+import net.pixelateddream.macebattles.misc.MatchmakingListener;
+import net.pixelateddream.macebattles.util.LongHashSet;
 import org.bukkit.Bukkit;
+import org.bukkit.GameRule;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.WorldCreator;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
 import org.bukkit.block.structure.Mirror;
 import org.bukkit.block.structure.StructureRotation;
+import org.bukkit.entity.AreaEffectCloud;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.ExperienceOrb;
+import org.bukkit.entity.FallingBlock;
+import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
+import org.bukkit.entity.Projectile;
+import org.bukkit.entity.SpawnCategory;
+import org.bukkit.entity.TNTPrimed;
 import org.bukkit.structure.Structure;
-import org.bukkit.structure.StructureManager;
 import org.bukkit.util.BlockVector;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 public class MapManager {
     private final Macebattles plugin;
-    private final StructureManager structureManager;
-    private final Map<String, ArenaInstance> activeArenas;
+    private final StructureCache structureCache; // Decoded maps, kept in sync with the structures folder
+    private final AtomicReference<MapCatalog> catalog = new AtomicReference<>(MapCatalog.EMPTY); // Rebuilt and swapped on changes
+    private final ArrayDeque<String> recentMaps = new ArrayDeque<>(); // Most recently picked maps, newest first
+    private final int avoidRecent; // How many recent maps random selection avoids
+    private final Map<String, ArenaInstance> activeArenas; // Arenas checked out by matches
+    private final Map<Integer, ArenaInstance> activeBySlot = new HashMap<>(); // Grid slot -> arena checked out by a match
+    private final Map<String, ArenaPool> pools = new HashMap<>(); // Map name -> warm arenas
+    private final int poolMinIdle; // Idle arenas kept per map without demand
+    private final int poolMaxPerMap; // Most arenas (in use + idle) kept per map
+    private final double poolHeadroom; // Extra arenas above the recent demand peak, as a fraction
+    private final int poolMaxUses; // Matches before a pooled arena is replaced by a fresh placement (0 = never)
+    private final int poolWindowSeconds; // How far back the demand peak looks
+    private int poolTaskId = -1; // Track pool maintenance task
+    private int arenaCounter = 0; // Makes arena IDs unique
+    private final World arenaWorld; // Void world holding only arenas, separate from the lobby
+    private final ArenaGrid grid; // Where arenas are placed
+    private final ArrayDeque<ArenaTeardown> teardowns = new ArrayDeque<>(); // Arenas being cleared, oldest first
+    private final long teardownBudgetNanos; // Time per tick spent clearing arenas
+    private int teardownTaskId = -1; // Track teardown task, only scheduled while arenas are being cleared
+
+    // Counters
+    private long resets = 0; // Pooled arenas restored from their journal
+    private long restoredBlocks = 0; // Blocks restored across all resets
 
     public MapManager(Macebattles plugin) {
         this.plugin = plugin;
-        this.structureManager = Bukkit.getStructureManager();
         this.activeArenas = new HashMap<>();
 
         // Create structures directory if it doesn't exist
@@ -33,31 +67,192 @@ public class MapManager {
             structuresDir.mkdirs();
             plugin.getLogger().info("Created structures directory at: " + structuresDir.getPath());
         }
+
+        // Decode every map once up front, later changes are picked up by the watcher
+        this.structureCache = new StructureCache(structuresDir, Bukkit.getStructureManager(), plugin.getLogger());
+        structureCache.loadAll();
+        reloadCatalog(structuresDir);
+        structureCache.setChangeListener(() -> reloadCatalog(structuresDir));
+        structureCache.startWatching();
+        this.avoidRecent = Math.max(0, plugin.getConfig().getInt("arenas.maps.avoid-recent", 2));
+
+        this.poolMinIdle = Math.max(0, plugin.getConfig().getInt("arenas.pool.min-idle", 1));
+        this.poolMaxPerMap = Math.max(1, plugin.getConfig().getInt("arenas.pool.max-per-map", 16));
+        this.poolHeadroom = Math.max(0.0, plugin.getConfig().getDouble("arenas.pool.headroom", 0.25));
+        this.poolWindowSeconds = Math.max(1, plugin.getConfig().getInt("arenas.pool.demand-window-seconds", 300));
+        this.poolMaxUses = Math.max(0, plugin.getConfig().getInt("arenas.pool.max-uses", 20));
+        this.teardownBudgetNanos = (long) (Math.max(0.1, plugin.getConfig().getDouble("arenas.teardown.budget-millis", 2.0)) * 1_000_000);
+
+        this.arenaWorld = createArenaWorld();
+
+        // Slots fit the largest map plus a gap one chunk wider than the view distance. With a gap of exactly the view
+        // distance, an arena ending on the first block of a chunk is still sent its neighbour's first chunk.
+        int maxFootprint = 32;
+        for (String mapName : structureCache.getMapNames()) {
+            BlockVector size = structureCache.get(mapName).structure().getSize();
+            maxFootprint = Math.max(maxFootprint, Math.max(size.getBlockX(), size.getBlockZ()));
+        }
+        int gapChunks = plugin.getConfig().getInt("arenas.grid.gap-chunks", -1);
+        this.grid = new ArenaGrid(
+                plugin.getConfig().getInt("arenas.grid.origin-x", 10000),
+                plugin.getConfig().getInt("arenas.grid.origin-y", 100),
+                plugin.getConfig().getInt("arenas.grid.origin-z", 10000),
+                plugin.getConfig().getInt("arenas.grid.columns", 32),
+                maxFootprint, (gapChunks >= 0 ? gapChunks : arenaWorld.getViewDistance() + 1) * 16);
+        plugin.getLogger().info("Arena grid slots are " + grid.getPitch() + " blocks wide");
+
+        // Keep each map's pool sized to recent demand, checked every second
+        poolTaskId = Bukkit.getScheduler().runTaskTimer(plugin, this::maintainPools, 20L, 20L).getTaskId();
     }
 
     /**
-     * Gets all available map files from the structures directory
-     * @return List of map names (without .nbt extension)
+     * Loads the arena world, creating it on first start
+     * Chunks are generated empty and nothing spawns naturally, so the world only ticks what the arenas need.
      */
-    public List<String> getAvailableMaps() {
-        List<String> maps = new ArrayList<>();
-        File structuresDir = new File(plugin.getDataFolder(), "structures");
+    private World createArenaWorld() {
+        String name = plugin.getConfig().getString("arenas.world.name", "macebattles_arenas");
+        int originY = plugin.getConfig().getInt("arenas.grid.origin-y", 100);
+        World world = new WorldCreator(name)
+                .environment(World.Environment.NORMAL)
+                .generator(new VoidChunkGenerator(originY))
+                .generateStructures(false)
+                .createWorld();
+        if (world == null) {
+            throw new IllegalStateException("Could not load arena world " + name);
+        }
 
-        if (!structuresDir.exists()) {
-            plugin.getLogger().warning("Structures directory does not exist!");
-            return maps;
+        world.setSpawnFlags(false, false);
+        for (SpawnCategory category : SpawnCategory.values()) {
+            if (category != SpawnCategory.MISC) {
+                world.setSpawnLimit(category, 0);
+            }
+        }
+        world.setGameRule(GameRule.DO_MOB_SPAWNING, false);
+        world.setGameRule(GameRule.DO_PATROL_SPAWNING, false);
+        world.setGameRule(GameRule.DO_TRADER_SPAWNING, false);
+        world.setGameRule(GameRule.DO_INSOMNIA, false);
+        world.setGameRule(GameRule.DO_DAYLIGHT_CYCLE, false);
+        world.setGameRule(GameRule.DO_WEATHER_CYCLE, false);
+        world.setGameRule(GameRule.SPAWN_CHUNK_RADIUS, 0);
+        world.setTime(6000);
+        world.setStorm(false);
+
+        // Per-world distances are Paper API, the plugin compiles against Spigot
+        setWorldDistance(world, "setViewDistance", plugin.getConfig().getInt("arenas.world.view-distance", 6));
+        setWorldDistance(world, "setSimulationDistance", plugin.getConfig().getInt("arenas.world.simulation-distance", 4));
+
+        plugin.getLogger().info("Arena world " + name + " loaded (view distance " + world.getViewDistance()
+                + ", simulation distance " + world.getSimulationDistance() + ")");
+        return world;
+    }
+
+    private void setWorldDistance(World world, String setter, int distance) {
+        if (distance <= 0) {
+            return;
+        }
+        try {
+            World.class.getMethod(setter, int.class).invoke(world, distance);
+        } catch (NoSuchMethodException e) {
+            // Spigot: the world keeps the server-wide distance
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            plugin.getLogger().warning("Could not apply " + setter + " to the arena world: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the world arenas are placed in
+     */
+    public World getArenaWorld() {
+        return arenaWorld;
+    }
+
+    /**
+     * Sends a player who joins inside the arena world back to the main world spawn unless they are in a match
+     * Covers players saved there by a restart or crash mid-match, whose pending teleport was only held in memory.
+     */
+    public void handlePlayerJoin(Player player) {
+        if (!player.getWorld().equals(arenaWorld)) {
+            return;
+        }
+        MatchmakingListener matchmakingListener = plugin.getMatchmakingListener();
+        if (matchmakingListener != null && matchmakingListener.getMatchByPlayer(player.getUniqueId()) != null) {
+            return;
+        }
+        evacuate(player);
+        player.sendMessage("§aYou have been returned to spawn (your match ended while you were away).");
+        plugin.getLogger().info("Moved " + player.getName() + " out of the arena world on join");
+    }
+
+    private void evacuate(Player player) {
+        player.teleport(Bukkit.getWorlds().getFirst().getSpawnLocation());
+    }
+
+    /**
+     * Stops watching the structures folder and clears every placed arena (called on plugin disable)
+     * The arena world is saved and the grid hands out slot 0 onward again on the next start, so arenas still
+     * checked out by matches are cleared along with the idle pooled ones. Players still in the arena world are
+     * moved to the main world first, so they don't rejoin inside a cleared slot.
+     */
+    public void shutdown() {
+        structureCache.close();
+        for (Player player : arenaWorld.getPlayers()) {
+            evacuate(player);
+        }
+        if (poolTaskId != -1) {
+            Bukkit.getScheduler().cancelTask(poolTaskId);
+            poolTaskId = -1;
         }
 
-        File[] files = structuresDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".nbt"));
-        if (files != null) {
-            for (File file : files) {
-                String mapName = file.getName().replaceAll("\\.nbt$", "");
-                maps.add(mapName);
+        // No more ticks after this, finish clearing in one go (a disabled plugin can't schedule the teardown task)
+        if (teardownTaskId != -1) {
+            Bukkit.getScheduler().cancelTask(teardownTaskId);
+            teardownTaskId = -1;
+        }
+        for (ArenaInstance arena : activeArenas.values()) {
+            teardowns.addLast(new ArenaTeardown(arena));
+        }
+        activeArenas.clear();
+        activeBySlot.clear();
+        for (ArenaPool pool : pools.values()) {
+            ArenaInstance arena;
+            while ((arena = pool.removeIdle()) != null) {
+                teardowns.addLast(new ArenaTeardown(arena));
             }
         }
+        ArenaTeardown teardown;
+        while ((teardown = teardowns.pollFirst()) != null) {
+            teardown.step(Long.MAX_VALUE);
+            finishTeardown(teardown);
+        }
+    }
+
+    /**
+     * Rebuilds the map catalog from the structure cache and sidecar files, then swaps it in
+     * Runs at startup and on the structure watcher thread.
+     */
+    private void reloadCatalog(File structuresDir) {
+        // The grid is sized for the maps present at startup, larger maps added later are left out until a restart
+        MapCatalog rebuilt = MapCatalog.build(structureCache, structuresDir, plugin.getLogger(),
+                size -> grid == null || grid.fits(size));
+        MapCatalog previous = catalog.getAndSet(rebuilt);
+        if (previous != MapCatalog.EMPTY || rebuilt.size() > 0) {
+            plugin.getLogger().info("Map catalog loaded: " + rebuilt.size() + " map(s)");
+        }
+    }
+
+    /**
+     * Gets the current map catalog (immutable, safe to read from any thread)
+     */
+    public MapCatalog getCatalog() {
+        return catalog.get();
+    }
 
-        plugin.getLogger().info("Found " + maps.size() + " map(s): " + maps);
-        return maps;
+    /**
+     * Gets all available maps (served from the map catalog, no disk access)
+     * @return List of map names (without .nbt extension)
+     */
+    public List<String> getAvailableMaps() {
+        return catalog.get().getNames();
     }
 
     /**
@@ -65,29 +260,37 @@ public class MapManager {
      * @return Random map name, or null if no maps available
      */
     public String getRandomMap() {
-        List<String> maps = getAvailableMaps();
-        if (maps.isEmpty()) {
-            plugin.getLogger().warning("No maps found in structures directory!");
-            return null;
-        }
-        Random random = new Random();
-        return maps.get(random.nextInt(maps.size()));
+        return getRandomMap(null);
     }
 
     /**
-     * Loads a structure from an NBT file
-     * @param structureName The name of the structure file (without .nbt extension)
-     * @return The loaded structure, or null if failed
+     * Gets a weighted random map for a queue, avoiding the most recently played maps when others are available
+     * @param queueType The queue the match is for, or null for any queue
+     * @return Random map name, or null if no maps available
      */
-    public Structure loadStructure(String structureName) throws IOException {
-        File structureFile = new File(plugin.getDataFolder(), "structures/" + structureName + ".nbt");
-
-        if (!structureFile.exists()) {
-            plugin.getLogger().warning("Structure file not found: " + structureFile.getPath());
+    public String getRandomMap(MatchmakingListener.QueueType queueType) {
+        String map = catalog.get().select(queueType, recentMaps, ThreadLocalRandom.current());
+        if (map == null) {
+            plugin.getLogger().warning("No maps found in structures directory" + (queueType != null ? " for " + queueType : "") + "!");
             return null;
         }
 
-        return structureManager.loadStructure(structureFile);
+        recentMaps.remove(map);
+        recentMaps.addFirst(map);
+        while (recentMaps.size() > avoidRecent) {
+            recentMaps.removeLast();
+        }
+        return map;
+    }
+
+    /**
+     * Gets a map's structure from the structure cache
+     * @param structureName The name of the structure file (without .nbt extension)
+     * @return The cached structure, or null if no such map is loaded
+     */
+    public Structure loadStructure(String structureName) {
+        StructureCache.CachedMap map = structureCache.get(structureName);
+        return map != null ? map.structure() : null;
     }
 
     /**
@@ -112,156 +315,494 @@ public class MapManager {
 
     /**
      * Removes an arena instance from tracking and cleans up the structure in the world
+     * Matches should use {@link #releaseArena(String)} so the arena can be reused
      * @param arenaId The arena ID to remove
      */
     public void removeArenaInstance(String arenaId) {
         ArenaInstance instance = activeArenas.remove(arenaId);
         if (instance != null) {
-            // Attempt to clear the structure area (replace with air)
-            Location base = instance.getBaseLocation();
-            // For now, clear a 32x32x32 cube centered on base (customize as needed)
-            int radius = 16;
-            World world = base.getWorld();
-            int bx = base.getBlockX();
-            int by = base.getBlockY();
-            int bz = base.getBlockZ();
-            for (int x = bx - radius; x <= bx + radius; x++) {
-                for (int y = by - 1; y <= by + 31; y++) {
-                    for (int z = bz - radius; z <= bz + radius; z++) {
-                        assert world != null;
-                        world.getBlockAt(x, y, z).setType(Material.AIR, false);
-                    }
-                }
+            activeBySlot.remove(instance.getSlot());
+            ArenaPool pool = pools.get(instance.getMapName());
+            if (pool != null && pool.release(instance)) {
+                pool.removeIdle(); // Just released, so it is the newest idle arena
             }
-            plugin.getLogger().info("Arena instance " + arenaId + " removed and area cleared.");
+            destroyArena(instance);
         } else {
             plugin.getLogger().warning("Tried to remove non-existent arena instance: " + arenaId);
         }
     }
 
     /**
-     * Scans the structure area for vault blocks and uses them as spawn points
-     * @param baseLocation The base location where the structure was placed
-     * @param structure The structure that was placed
-     * @return Map of spawn point index to location
+     * Queues an arena's structure to be cleared from the world
+     * Its grid slot and chunk tickets are freed once the last block is cleared.
      */
-    private Map<Integer, Location> detectSpawnPoints(Location baseLocation, Structure structure) {
-        Map<Integer, Location> spawnPoints = new HashMap<>();
+    private void destroyArena(ArenaInstance instance) {
+        teardowns.addLast(new ArenaTeardown(instance));
+        if (teardownTaskId == -1) {
+            teardownTaskId = Bukkit.getScheduler().runTaskTimer(plugin, this::runTeardowns, 1L, 1L).getTaskId();
+        }
+    }
+
+    /**
+     * Clears queued arenas until this tick's budget is spent (runs every tick while any are queued)
+     */
+    private void runTeardowns() {
+        long deadline = System.nanoTime() + teardownBudgetNanos;
+        ArenaTeardown teardown;
+        while ((teardown = teardowns.peekFirst()) != null && System.nanoTime() < deadline) {
+            if (!teardown.step(deadline)) {
+                break;
+            }
+            teardowns.pollFirst();
+            finishTeardown(teardown);
+        }
+
+        if (teardowns.isEmpty()) {
+            Bukkit.getScheduler().cancelTask(teardownTaskId);
+            teardownTaskId = -1;
+        }
+    }
+
+    private void finishTeardown(ArenaTeardown teardown) {
+        ArenaInstance instance = teardown.getArena();
+        // While the chunks are still loaded: the next placement in this slot brings its own map entities
+        removeEntities(instance, entity -> !(entity instanceof Player));
+        instance.releaseChunks(plugin);
+        grid.release(instance.getSlot());
+        plugin.getLogger().info("Arena instance " + instance.getId() + " removed and area cleared ("
+                + teardown.getCleared() + " of " + teardown.getVisited() + " blocks).");
+    }
+
+    /**
+     * Gets how many arenas are waiting to be cleared
+     */
+    public int getPendingTeardownCount() {
+        return teardowns.size();
+    }
+
+    /**
+     * Returns an arena to its map's pool after a match, so the next match can use it without placing anything
+     * Arenas of a map that was changed or removed meanwhile are cleared instead.
+     * @param arenaId The arena ID to release
+     */
+    public void releaseArena(String arenaId) {
+        ArenaInstance instance = activeArenas.remove(arenaId);
+        if (instance == null) {
+            plugin.getLogger().warning("Tried to release non-existent arena instance: " + arenaId);
+            return;
+        }
+        activeBySlot.remove(instance.getSlot());
+
+        ArenaPool pool = pools.get(instance.getMapName());
+        if (pool == null || !pool.release(instance)) {
+            destroyArena(instance);
+            return;
+        }
+        StructureCache.CachedMap map = structureCache.get(instance.getMapName());
+        if (map == null || map.lastModified() != pool.getMapVersion()) {
+            // Map changed or removed before the pools caught up, the template no longer matches
+            pool.removeIdle();
+            destroyArena(instance);
+            return;
+        }
+        if (poolMaxUses > 0 && instance.recordUse() >= poolMaxUses) {
+            // Replaced by a fresh placement from the template now and then, in case the journal missed a change
+            pool.removeIdle(); // Just released, so it is the newest idle arena
+            destroyArena(instance);
+            return;
+        }
+
+        // Only the blocks changed during the match need restoring
+        resetArena(instance, map.template());
+        // Only what the match left lying around, entities placed with the map (armor stands, item frames) stay
+        removeEntities(instance, MapManager::isMatchLeftover);
+    }
+
+    /**
+     * Removes the entities inside an arena's bounds that match a filter
+     */
+    private void removeEntities(ArenaInstance instance, Predicate<Entity> filter) {
+        World world = instance.getBaseLocation().getWorld();
+        if (world == null) {
+            return;
+        }
+        for (Entity entity : world.getNearbyEntities(instance.getBounds(), filter)) {
+            entity.remove();
+        }
+    }
+
+    /**
+     * Checks whether an entity is something a match leaves lying around (drops, projectiles, primed TNT)
+     */
+    private static boolean isMatchLeftover(Entity entity) {
+        // Projectile covers arrows, tridents, wind charges and fireworks
+        return entity instanceof Item || entity instanceof Projectile || entity instanceof ExperienceOrb
+                || entity instanceof AreaEffectCloud || entity instanceof TNTPrimed || entity instanceof FallingBlock;
+    }
+
+    /**
+     * Restores the journaled blocks of an arena from its map's template and clears the journal
+     */
+    private void resetArena(ArenaInstance instance, StructureCache.Template template) {
+        World world = instance.getBaseLocation().getWorld();
+        LongHashSet journal = instance.getJournal();
+        if (world == null || journal.isEmpty()) {
+            return;
+        }
 
-        // Get structure size
-        BlockVector size = structure.getSize();
-        plugin.getLogger().info("Scanning structure of size: " + size.getX() + "x" + size.getY() + "x" + size.getZ() + " for vault blocks");
-
-        int spawnIndex = 0;
-
-        // Scan the entire structure area for vault blocks
-        for (int x = 0; x <= size.getX(); x++) {
-            for (int y = 0; y <= size.getY(); y++) {
-                for (int z = 0; z <= size.getZ(); z++) {
-                    Location checkLoc = baseLocation.clone().add(x, y, z);
-                    Block block = checkLoc.getBlock();
-
-                    if (block.getType() == Material.VAULT) {
-                        // Found a vault block - this is a spawn point
-                        // Spawn player 1 block above the vault
-                        Location spawnLoc = checkLoc.clone().add(0.5, 1, 0.5); // Center of block, 1 block up
-                        spawnPoints.put(spawnIndex, spawnLoc);
-                        plugin.getLogger().info("Found spawn point #" + spawnIndex + " at relative position (" + x + ", " + y + ", " + z + ")");
-                        spawnIndex++;
+        int baseX = instance.getBaseLocation().getBlockX();
+        int baseY = instance.getBaseLocation().getBlockY();
+        int baseZ = instance.getBaseLocation().getBlockZ();
+        journal.forEach(packed -> {
+            Block block = world.getBlockAt(LongHashSet.unpackX(packed), LongHashSet.unpackY(packed), LongHashSet.unpackZ(packed));
+            BlockState original = template.at(block.getX() - baseX, block.getY() - baseY, block.getZ() - baseZ);
+            if (original != null) {
+                original.copy(block.getLocation()).update(true, false);
+            } else if (!block.getType().isAir()) {
+                block.setType(Material.AIR, false);
+            }
+        });
+        resets++;
+        restoredBlocks += journal.size();
+        journal.clear();
+    }
+
+    /**
+     * Gets the arena in a match that a block belongs to
+     * @return The arena, or null if the block is not inside an arena in use
+     */
+    public ArenaInstance getArenaAt(Block block) {
+        ArenaInstance arena = activeBySlot.get(grid.getSlotAt(block.getX(), block.getZ()));
+        if (arena == null || !block.getWorld().equals(arena.getBaseLocation().getWorld())
+                || !arena.contains(block.getX(), block.getY(), block.getZ())) {
+            return null;
+        }
+        return arena;
+    }
+
+    /**
+     * Gets how many pooled arenas were reset from their journal
+     */
+    public long getResetCount() {
+        return resets;
+    }
+
+    /**
+     * Gets how many blocks were restored across all journal resets
+     */
+    public long getRestoredBlockCount() {
+        return restoredBlocks;
+    }
+
+    /**
+     * Checks out an arena for a match, placing a new one only if the map's pool has none idle
+     * @param mapName The map to use
+     * @return The arena, or null if the map is not loaded or placement failed
+     */
+    public ArenaInstance acquireArena(String mapName) {
+        ArenaPool pool = getPool(mapName);
+        if (pool == null) {
+            plugin.getLogger().warning("Map not found in structure cache: " + mapName);
+            return null;
+        }
+
+        ArenaInstance arena = pool.poll();
+        if (arena == null) {
+            arena = placeArena(mapName);
+            if (arena == null) {
+                return null;
+            }
+            pool.placedForCheckout(arena);
+        }
+
+        activeArenas.put(arena.getId(), arena);
+        if (arena.getSlot() >= 0) {
+            activeBySlot.put(arena.getSlot(), arena);
+        }
+        return arena;
+    }
+
+    /**
+     * Gets the pool for a cached map, creating it on first use
+     * @return The pool, or null if the map is not in the structure cache
+     */
+    private ArenaPool getPool(String mapName) {
+        StructureCache.CachedMap map = structureCache.get(mapName);
+        if (map == null) {
+            return null;
+        }
+        return pools.computeIfAbsent(mapName, name -> new ArenaPool(name, map.lastModified(), poolWindowSeconds));
+    }
+
+    /**
+     * Resizes the pools towards recent demand (runs every second)
+     * Places at most one arena per run so warming the pools never costs more than one placement per second.
+     */
+    private void maintainPools() {
+        // Maps disabled in the catalog (weight 0) are only placed on demand
+        MapCatalog current = catalog.get();
+        for (String mapName : current.getNames()) {
+            if (current.get(mapName).weight() > 0) {
+                getPool(mapName);
+            }
+        }
+
+        ArenaPool mostShort = null;
+        int largestDeficit = 0;
+        Iterator<ArenaPool> iterator = pools.values().iterator();
+        while (iterator.hasNext()) {
+            ArenaPool pool = iterator.next();
+            pool.rotate();
+
+            // Map removed or changed on disk: idle arenas are of the old version
+            StructureCache.CachedMap map = structureCache.get(pool.getMapName());
+            if (map == null || map.lastModified() != pool.getMapVersion()) {
+                for (ArenaInstance stale : pool.changeVersion(map != null ? map.lastModified() : -1)) {
+                    destroyArena(stale);
+                }
+                if (map == null) {
+                    if (pool.getInUseCount() == 0) {
+                        iterator.remove();
                     }
+                    continue;
                 }
             }
+
+            int deficit = pool.getTargetSize(poolMinIdle, poolMaxPerMap, poolHeadroom) - pool.getSize();
+            if (deficit > largestDeficit) {
+                largestDeficit = deficit;
+                mostShort = pool;
+            } else if (deficit < 0 && pool.getIdleCount() > poolMinIdle) {
+                // Demand dropped, shrink one arena at a time
+                destroyArena(pool.removeIdle());
+            }
+        }
+
+        if (mostShort != null) {
+            warmArena(mostShort);
+        }
+    }
+
+    /**
+     * Places an arena ahead of demand once its chunks have loaded asynchronously
+     * The arena counts towards the pool's size while its chunks load, so the pool doesn't over-place.
+     */
+    private void warmArena(ArenaPool pool) {
+        ArenaInstance arena = reserveArena(pool.getMapName());
+        if (arena == null) {
+            return;
         }
 
-        if (spawnPoints.isEmpty()) {
-            plugin.getLogger().warning("No vault blocks found in structure! Using default spawn points.");
-            // Fallback to default positions if no vaults found
+        long version = pool.getMapVersion();
+        pool.placementStarted();
+        arena.holdChunks(plugin).whenComplete((ignored, error) -> {
+            pool.placementFinished();
+            if (error != null) {
+                plugin.getLogger().warning("Failed to load chunks for arena " + arena.getId() + ": " + error.getMessage());
+            }
+            // Shut down, or the map changed while the chunks were loading: nothing was placed, just give the slot back
+            if (error != null || poolTaskId == -1 || pools.get(pool.getMapName()) != pool
+                    || pool.getMapVersion() != version || !placeStructure(arena)) {
+                arena.releaseChunks(plugin);
+                grid.release(arena.getSlot());
+                return;
+            }
+            pool.addIdle(arena);
+        });
+    }
+
+    /**
+     * Gets the arena pools (for pool size and reuse counters)
+     */
+    public Collection<ArenaPool> getPools() {
+        return Collections.unmodifiableCollection(pools.values());
+    }
+
+    /**
+     * Gets how many chunks each placed arena (active or idle) holds a ticket on
+     */
+    public IntSummaryStatistics getChunkTicketStats() {
+        IntSummaryStatistics stats = new IntSummaryStatistics();
+        for (ArenaInstance arena : activeArenas.values()) {
+            stats.accept(arena.getTicketedChunkCount());
+        }
+        for (ArenaPool pool : pools.values()) {
+            for (ArenaInstance arena : pool.getIdleArenas()) {
+                stats.accept(arena.getTicketedChunkCount());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Turns a map's precomputed vault offsets into world spawn points, no world reads needed
+     * @param baseLocation The base location where the structure was placed
+     * @param spawnOffsets Vault positions relative to the structure origin
+     * @return Map of spawn point index to location
+     */
+    private Map<Integer, Location> resolveSpawnPoints(Location baseLocation, List<BlockVector> spawnOffsets) {
+        Map<Integer, Location> spawnPoints = new HashMap<>();
+
+        if (spawnOffsets.isEmpty()) {
+            // Fallback to default positions if the map has no vaults
             spawnPoints.put(0, baseLocation.clone().add(5.5, 1, 5.5));
             spawnPoints.put(1, baseLocation.clone().add(-4.5, 1, -4.5));
-        } else {
-            plugin.getLogger().info("Detected " + spawnPoints.size() + " spawn point(s) from vault blocks");
+            return spawnPoints;
         }
 
+        for (int i = 0; i < spawnOffsets.size(); i++) {
+            BlockVector offset = spawnOffsets.get(i);
+            // Spawn player 1 block above the vault, centered on the block
+            spawnPoints.put(i, baseLocation.clone().add(offset.getBlockX() + 0.5, offset.getBlockY() + 1, offset.getBlockZ() + 0.5));
+        }
         return spawnPoints;
     }
 
     /**
-     * Creates an arena instance with automatic spawn point detection
+     * Places a map and builds its arena instance (not checked out, see {@link #acquireArena(String)})
      * @param baseLocation The base location for the arena
      * @param structureName The structure to load
      * @return ArenaInstance with spawn locations
      */
     public ArenaInstance createArenaInstanceWithDetection(Location baseLocation, String structureName) {
-        try {
-            Structure structure = loadStructure(structureName);
-            if (structure == null) {
-                return null;
-            }
+        return createArenaInstanceWithDetection(baseLocation, structureName, -1);
+    }
 
-            // Place the structure at the base location
-            structure.place(baseLocation, true, StructureRotation.NONE,
-                    Mirror.NONE, 0, 1.0f, new Random());
+    private ArenaInstance createArenaInstanceWithDetection(Location baseLocation, String structureName, int slot) {
+        ArenaInstance instance = buildArenaInstance(baseLocation, structureName, slot);
+        if (instance == null) {
+            return null;
+        }
+        instance.holdChunksNow(plugin);
+        if (!placeStructure(instance)) {
+            instance.releaseChunks(plugin);
+            return null;
+        }
+        return instance;
+    }
 
-            plugin.getLogger().info("Placed structure '" + structureName + "' at " +
-                baseLocation.getBlockX() + ", " + baseLocation.getBlockY() + ", " + baseLocation.getBlockZ());
+    /**
+     * Builds an arena instance with its spawn points, without placing anything in the world
+     */
+    private ArenaInstance buildArenaInstance(Location baseLocation, String structureName, int slot) {
+        StructureCache.CachedMap map = structureCache.get(structureName);
+        if (map == null) {
+            plugin.getLogger().warning("Map not found in structure cache: " + structureName);
+            return null;
+        }
 
-            // Detect spawn points from vault blocks
-            Map<Integer, Location> spawnPoints = detectSpawnPoints(baseLocation, structure);
+        // Spawn points come from the vault blocks found when the map was cached
+        Map<Integer, Location> spawnPoints = resolveSpawnPoints(baseLocation, map.spawnOffsets());
 
-            // Create arena instance
-            String arenaId = structureName + "_" + System.currentTimeMillis();
-            ArenaInstance instance = new ArenaInstance(arenaId, baseLocation);
+        // Create arena instance
+        String arenaId = structureName + "_" + (++arenaCounter);
+        ArenaInstance instance = new ArenaInstance(arenaId, structureName, baseLocation, map.structure().getSize(), slot);
 
-            for (Map.Entry<Integer, Location> entry : spawnPoints.entrySet()) {
-                instance.addSpawnPoint(entry.getKey(), entry.getValue());
-            }
+        for (Map.Entry<Integer, Location> entry : spawnPoints.entrySet()) {
+            instance.addSpawnPoint(entry.getKey(), entry.getValue());
+        }
 
-            activeArenas.put(arenaId, instance);
-            return instance;
+        return instance;
+    }
 
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to load structure: " + e.getMessage());
-            return null;
+    /**
+     * Places an arena's map at its base location
+     * @return false if the map is no longer in the structure cache
+     */
+    private boolean placeStructure(ArenaInstance instance) {
+        StructureCache.CachedMap map = structureCache.get(instance.getMapName());
+        if (map == null) {
+            plugin.getLogger().warning("Map not found in structure cache: " + instance.getMapName());
+            return false;
         }
+        Location baseLocation = instance.getBaseLocation();
+
+        // Place the structure at the base location
+        map.structure().place(baseLocation, true, StructureRotation.NONE,
+                Mirror.NONE, 0, 1.0f, ThreadLocalRandom.current());
+
+        plugin.getLogger().info("Placed structure '" + instance.getMapName() + "' at " +
+            baseLocation.getBlockX() + ", " + baseLocation.getBlockY() + ", " + baseLocation.getBlockZ());
+        return true;
     }
 
     /**
-     * Creates a random arena instance for matchmaking
-     * Automatically picks a random map from the structures directory
+     * Checks out an arena of a random map for matchmaking
+     * Served from the map's pool of pre-placed arenas when one is idle
      * @return ArenaInstance with spawn locations
      */
     public ArenaInstance createRandomArena() {
-        // Get a random map from available maps
-        String structureName = getRandomMap();
+        return createRandomArena(null);
+    }
+
+    /**
+     * Checks out an arena of a random map allowed in a queue
+     * @param queueType The queue the match is for, or null for any queue
+     * @return ArenaInstance with spawn locations
+     */
+    public ArenaInstance createRandomArena(MatchmakingListener.QueueType queueType) {
+        // Get a random map from the catalog
+        String structureName = getRandomMap(queueType);
         if (structureName == null) {
             plugin.getLogger().severe("No maps available to create arena!");
             return null;
         }
 
-        plugin.getLogger().info("Selected random map: " + structureName);
-        return createRandomArena(structureName);
+        return acquireArena(structureName);
     }
 
     /**
-     * Creates a random arena instance for a specific map
+     * Places a map in the lowest free grid slot right away (not checked out, see {@link #acquireArena(String)})
+     * Only used when a match needs an arena and the pool has none idle.
      * @param structureName The structure to load
      * @return ArenaInstance with spawn locations
      */
-    public ArenaInstance createRandomArena(String structureName) {
-        World world = Bukkit.getWorld("world"); // Use default world or configure this
-        if (world == null) {
-            plugin.getLogger().severe("World not found for arena creation!");
+    private ArenaInstance placeArena(String structureName) {
+        ArenaInstance instance = reserveArena(structureName);
+        if (instance == null) {
             return null;
         }
+        instance.holdChunksNow(plugin);
+        if (!placeStructure(instance)) {
+            instance.releaseChunks(plugin);
+            grid.release(instance.getSlot());
+            return null;
+        }
+        return instance;
+    }
 
-        // Generate random location (adjust coordinates as needed)
-        Random random = new Random();
-        int x = random.nextInt(10000) + 10000; // Between 10000 and 20000
-        int z = random.nextInt(10000) + 10000;
-        int y = 100; // Fixed height or use world.getHighestBlockYAt(x, z)
+    /**
+     * Takes the lowest free grid slot for a map and builds its arena instance, nothing is placed yet
+     * @param structureName The structure to load
+     * @return The unplaced arena, or null if the map is missing or too large for a slot
+     */
+    private ArenaInstance reserveArena(String structureName) {
+        StructureCache.CachedMap map = structureCache.get(structureName);
+        if (map == null) {
+            plugin.getLogger().warning("Map not found in structure cache: " + structureName);
+            return null;
+        }
 
-        Location baseLocation = new Location(world, x, y, z);
+        BlockVector size = map.structure().getSize();
+        if (!grid.fits(size)) {
+            // Placing it anyway would overlap the neighbouring slots
+            plugin.getLogger().warning("Map " + structureName + " is larger than the arena grid slots ("
+                    + grid.getPitch() + " blocks), restart to resize the grid");
+            return null;
+        }
 
-        // Use the new detection method instead of hardcoded spawn points
-        return createArenaInstanceWithDetection(baseLocation, structureName);
-    }}
+        int slot = grid.allocate();
+        ArenaInstance instance = buildArenaInstance(grid.getBaseLocation(arenaWorld, slot, size), structureName, slot);
+        if (instance == null) {
+            grid.release(slot);
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the arena placement grid (for slot occupancy)
+     */
+    public ArenaGrid getGrid() {
+        return grid;
+    }
+}
@@ -0,0 +1,301 @@
+package net.pixelateddream.macebattles.match;
+
+import org.bukkit.Material;
+import org.bukkit.block.BlockState;
+import org.bukkit.structure.Structure;
+import org.bukkit.structure.StructureManager;
+import org.bukkit.util.BlockVector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Decoded arena structures kept in memory, keyed by map name and file modification time
+ * All maps are decoded in parallel at startup, and a watcher thread on the structures folder picks up
+ * added, changed and removed .nbt files, so starting a match never reads from disk.
+ * Spawn points (vault blocks) and a position lookup of the placed blocks are built once per map from the structure's palette.
+ */
+public class StructureCache {
+    private static final String EXTENSION = ".nbt";
+
+    /**
+     * A decoded map
+     * @param spawnOffsets Vault positions relative to the structure origin, in x, y, z scan order
+     * @param template The blocks the map places, by position
+     * @param lastModified Modification time of the file it was decoded from
+     */
+    public record CachedMap(String name, Structure structure, List<BlockVector> spawnOffsets, Template template, long lastModified) {
+    }
+
+    /**
+     * The blocks of a structure's placed palette, looked up by position relative to the structure origin
+     * @param index Palette block index per position (x major, then y, then z), -1 where the structure places nothing
+     */
+    public record Template(int sizeX, int sizeY, int sizeZ, List<BlockState> blocks, int[] index) {
+        /**
+         * Gets the block the structure places at a relative position
+         * @return The block state, or null if the structure places nothing there (air or structure void)
+         */
+        public BlockState at(int x, int y, int z) {
+            if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {
+                return null;
+            }
+            int i = index[(x * sizeY + y) * sizeZ + z];
+            return i >= 0 ? blocks.get(i) : null;
+        }
+    }
+
+    private final File directory;
+    private final StructureManager structureManager;
+    private final Logger logger;
+    private final Map<String, CachedMap> entries = new ConcurrentHashMap<>();
+    private volatile List<String> mapNames = List.of(); // Sorted snapshot of the cached map names
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile Runnable changeListener; // Called on the watcher thread after maps or sidecar files change
+
+    public StructureCache(File directory, StructureManager structureManager, Logger logger) {
+        this.directory = directory;
+        this.structureManager = structureManager;
+        this.logger = logger;
+    }
+
+    /**
+     * Decodes every map in the structures folder in parallel and waits for all of them
+     */
+    public void loadAll() {
+        File[] files = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(EXTENSION));
+        if (files == null || files.length == 0) {
+            logger.warning("No maps found in " + directory.getPath());
+            refreshNames();
+            return;
+        }
+
+        long start = System.nanoTime();
+        int threads = Math.min(files.length, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<CompletableFuture<Void>> loads = new ArrayList<>(files.length);
+            for (File file : files) {
+                loads.add(CompletableFuture.runAsync(() -> load(file), executor));
+            }
+            CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        refreshNames();
+        logger.info("Cached " + entries.size() + " map(s) in " + ((System.nanoTime() - start) / 1_000_000) + "ms: " + mapNames);
+    }
+
+    /**
+     * Starts watching the structures folder for added, changed and removed maps
+     */
+    public void startWatching() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            logger.warning("Could not watch the structures folder, map changes need a restart: " + e.getMessage());
+            return;
+        }
+
+        watchThread = new Thread(this::watchLoop, "macebattles-structure-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rescan();
+                        continue;
+                    }
+
+                    String fileName = ((Path) event.context()).toString();
+                    if (!fileName.toLowerCase().endsWith(EXTENSION)) {
+                        continue; // Sidecar files only need the change listener below
+                    }
+                    File file = new File(directory, fileName);
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        if (entries.remove(mapName(file)) != null) {
+                            logger.info("Map removed: " + mapName(file));
+                        }
+                    } else {
+                        load(file);
+                    }
+                }
+                refreshNames();
+                Runnable listener = changeListener;
+                if (listener != null) {
+                    listener.run();
+                }
+                if (!key.reset()) {
+                    logger.warning("Structures folder is no longer watched");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Re-reads the whole folder after the watcher lost events
+     */
+    private void rescan() {
+        File[] files = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(EXTENSION));
+        List<String> present = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                present.add(mapName(file));
+                load(file);
+            }
+        }
+        entries.keySet().retainAll(present);
+    }
+
+    /**
+     * Decodes a map file unless the cached copy is already up to date
+     * A file that fails to decode (e.g. still being written) keeps its previous cached version.
+     */
+    private void load(File file) {
+        String name = mapName(file);
+        long lastModified = file.lastModified();
+        CachedMap cached = entries.get(name);
+        if (cached != null && cached.lastModified() == lastModified) {
+            return;
+        }
+
+        try {
+            Structure structure = structureManager.loadStructure(file);
+            List<BlockVector> spawnOffsets = findSpawnOffsets(structure);
+            if (spawnOffsets.isEmpty()) {
+                logger.warning("Map " + name + " has no vault blocks, default spawn points will be used");
+            }
+            entries.put(name, new CachedMap(name, structure, spawnOffsets, buildTemplate(structure), lastModified));
+            if (cached != null) {
+                logger.info("Map reloaded: " + name);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Failed to load map " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes the palette that gets placed (palette 0) by position, so single blocks can be restored without placing the whole map
+     */
+    private static Template buildTemplate(Structure structure) {
+        BlockVector size = structure.getSize();
+        int sizeX = size.getBlockX();
+        int sizeY = size.getBlockY();
+        int sizeZ = size.getBlockZ();
+        int[] index = new int[sizeX * sizeY * sizeZ];
+        Arrays.fill(index, -1);
+        if (structure.getPaletteCount() == 0) {
+            return new Template(sizeX, sizeY, sizeZ, List.of(), index);
+        }
+
+        List<BlockState> blocks = List.copyOf(structure.getPalettes().getFirst().getBlocks());
+        for (int i = 0; i < blocks.size(); i++) {
+            BlockState state = blocks.get(i);
+            int x = state.getX(), y = state.getY(), z = state.getZ();
+            if (x >= 0 && y >= 0 && z >= 0 && x < sizeX && y < sizeY && z < sizeZ) {
+                index[(x * sizeY + y) * sizeZ + z] = i;
+            }
+        }
+        return new Template(sizeX, sizeY, sizeZ, blocks, index);
+    }
+
+    /**
+     * Finds the vault blocks in the palette that gets placed (palette 0)
+     * Sorted by x, then y, then z so spawn indices match a scan of the placed structure.
+     */
+    private static List<BlockVector> findSpawnOffsets(Structure structure) {
+        List<BlockVector> offsets = new ArrayList<>();
+        if (structure.getPaletteCount() == 0) {
+            return offsets;
+        }
+
+        for (BlockState state : structure.getPalettes().getFirst().getBlocks()) {
+            if (state.getType() == Material.VAULT) {
+                offsets.add(new BlockVector(state.getX(), state.getY(), state.getZ()));
+            }
+        }
+        offsets.sort(Comparator.comparingInt(BlockVector::getBlockX)
+                .thenComparingInt(BlockVector::getBlockY)
+                .thenComparingInt(BlockVector::getBlockZ));
+        return List.copyOf(offsets);
+    }
+
+    private void refreshNames() {
+        List<String> names = new ArrayList<>(entries.keySet());
+        Collections.sort(names);
+        mapNames = Collections.unmodifiableList(names);
+    }
+
+    private static String mapName(File file) {
+        String fileName = file.getName();
+        return fileName.substring(0, fileName.length() - EXTENSION.length());
+    }
+
+    /**
+     * Gets a cached map
+     * @return The map, or null if no such map is loaded
+     */
+    public CachedMap get(String mapName) {
+        return entries.get(mapName);
+    }
+
+    /**
+     * Gets the names of all cached maps, sorted
+     */
+    public List<String> getMapNames() {
+        return mapNames;
+    }
+
+    /**
+     * Sets what to run after the watcher picked up changes in the structures folder
+     */
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Stops the watcher thread
+     */
+    public void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close structures watcher: " + e.getMessage());
+            }
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package net.pixelateddream.macebattles.match;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.generator.ChunkGenerator;
+
+import java.util.Random;
+
+/**
+ * Generates empty chunks for the arena world
+ * Every vanilla generation step is skipped, so a new arena chunk costs little more than allocating it.
+ */
+public class VoidChunkGenerator extends ChunkGenerator {
+    private final int spawnY; // Height of the fixed spawn location
+
+    public VoidChunkGenerator(int spawnY) {
+        this.spawnY = spawnY;
+    }
+
+    @Override
+    public boolean shouldGenerateNoise() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateSurface() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateCaves() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateDecorations() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateMobs() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateStructures() {
+        return false;
+    }
+
+    @Override
+    public Location getFixedSpawnLocation(World world, Random random) {
+        // Skips the search for a safe spawn block, which would never find one
+        return new Location(world, 0.5, spawnY, 0.5);
+    }
+}
@@ -0,0 +1,462 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of matchmaker messages (wire format "binary-v1")
+ *
+ * Frame: version byte 0xB1, then an object.
+ * Object: varint field count, then per field a varint key and a tagged value.
+ * Key: index into {@link #FIELDS} plus one, or 0 followed by the field name as a string.
+ * Value: one tag byte, then NULL/FALSE/TRUE (nothing), INT (zigzag varint), DOUBLE (8 bytes),
+ * STRING (varint length + UTF-8), SYMBOL (varint index into {@link #SYMBOLS}), UUID (two longs),
+ * ARRAY (varint count + values) or OBJECT.
+ *
+ * Both dictionaries are append-only, changing an existing entry breaks compatibility with the server.
+ * Lengths and counts read from the wire are checked against the bytes left in the frame before anything is
+ * allocated, and nesting is limited, so a corrupt frame fails with a JsonParseException.
+ * Stateless and thread safe.
+ */
+public class BinaryMessageCodec {
+    private static final byte VERSION = (byte) 0xB1;
+    private static final int MAX_DEPTH = 16; // Deepest array/object nesting accepted when reading
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_FALSE = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_SYMBOL = 6;
+    private static final byte TAG_UUID = 7;
+    private static final byte TAG_ARRAY = 8;
+    private static final byte TAG_OBJECT = 9;
+
+    private static final String[] FIELDS = {
+            "type", "request_id", "player_uuid", "player1_uuid", "player2_uuid", "match_uuid", "mode", "rating",
+            "player1_new_rating", "player2_new_rating", "message", "target_node", "node_id", "ratings", "players",
+            "player_uuids", "queued_at", "results", "result", "player1_rounds", "player2_rounds", "matched_locally",
+            "sent_at", "reason", "free_slots", "mspt", "active_matches", "online_players", "accepting", "max_matches",
+            "heartbeat_seconds", "format", "formats", "compression", "op", "messages"
+    };
+
+    private static final String[] SYMBOLS = {
+            "queue", "queue_bulk", "cancel_queue", "get_rating", "get_ratings", "match_result", "match_result_batch",
+            "ping", "pong", "hello", "hello_ack", "register_node", "node_heartbeat", "match_rejected", "queued",
+            "match_found", "result_processed", "queue_cancelled", "rating_response", "ratings_response", "error",
+            "casual", "ranked", "json", "binary-v1", "no_free_slots", "overloaded", "batch", "get_queue_snapshot",
+            "queue_snapshot"
+    };
+
+    private static final Map<String, Integer> FIELD_IDS = index(FIELDS);
+    private static final Map<String, Integer> SYMBOL_IDS = index(SYMBOLS);
+
+    private static Map<String, Integer> index(String[] names) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            ids.put(names[i], i);
+        }
+        return ids;
+    }
+
+    /**
+     * Encodes an outbound message
+     */
+    public byte[] encode(JsonObject message) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(VERSION);
+        writeObject(out, message);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes an inbound frame straight into a typed message
+     * @throws JsonParseException if the frame is malformed or misses a required field
+     */
+    public MatchmakerMessage decode(ByteBuffer frame) {
+        try {
+            if (frame.get() != VERSION) {
+                throw new JsonParseException("Unsupported binary frame version");
+            }
+
+            MessageFields fields = new MessageFields();
+            int count = readCount(frame);
+            for (int i = 0; i < count; i++) {
+                String name = readKey(frame);
+                byte tag = frame.get();
+                if (name.equals("ratings") && tag == TAG_ARRAY) {
+                    fields.ratings = readRatings(frame);
+                } else if (name.equals("player_uuids") && tag == TAG_ARRAY) {
+                    fields.playerUuids = readUuids(frame);
+                } else if (MessageFields.isKnown(name)) {
+                    readField(frame, tag, name, fields);
+                } else {
+                    skipValue(frame, tag, 1);
+                }
+            }
+            return fields.build();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new JsonParseException("Truncated binary frame");
+        }
+    }
+
+    /**
+     * Decodes a frame into a JSON tree, for callers that need every field (e.g. a stand-in matchmaker)
+     * Symbols and UUIDs come back as strings, so encoding and decoding round-trips to an equal object.
+     * @throws JsonParseException if the frame is malformed
+     */
+    public JsonObject decodeObject(ByteBuffer frame) {
+        try {
+            if (frame.get() != VERSION) {
+                throw new JsonParseException("Unsupported binary frame version");
+            }
+            return readObject(frame, 0);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new JsonParseException("Truncated binary frame");
+        }
+    }
+
+    // ===== Encoding =====
+
+    private void writeObject(ByteArrayOutputStream out, JsonObject object) {
+        writeVarInt(out, object.size());
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            Integer fieldId = FIELD_IDS.get(entry.getKey());
+            if (fieldId != null) {
+                writeVarInt(out, fieldId + 1);
+            } else {
+                writeVarInt(out, 0);
+                writeString(out, entry.getKey());
+            }
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private void writeValue(ByteArrayOutputStream out, JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            out.write(TAG_NULL);
+        } else if (value.isJsonObject()) {
+            out.write(TAG_OBJECT);
+            writeObject(out, value.getAsJsonObject());
+        } else if (value.isJsonArray()) {
+            JsonArray array = value.getAsJsonArray();
+            out.write(TAG_ARRAY);
+            writeVarInt(out, array.size());
+            for (JsonElement element : array) {
+                writeValue(out, element);
+            }
+        } else {
+            writePrimitive(out, value.getAsJsonPrimitive());
+        }
+    }
+
+    private void writePrimitive(ByteArrayOutputStream out, JsonPrimitive primitive) {
+        if (primitive.isBoolean()) {
+            out.write(primitive.getAsBoolean() ? TAG_TRUE : TAG_FALSE);
+        } else if (primitive.isNumber()) {
+            Number number = primitive.getAsNumber();
+            double asDouble = number.doubleValue();
+            if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte
+                    || (asDouble == Math.rint(asDouble) && Math.abs(asDouble) < 0x1p53)) {
+                out.write(TAG_INT);
+                writeVarLong(out, zigzag(number.longValue()));
+            } else {
+                out.write(TAG_DOUBLE);
+                writeLong(out, Double.doubleToLongBits(asDouble));
+            }
+        } else {
+            String text = primitive.getAsString();
+            Integer symbolId = SYMBOL_IDS.get(text);
+            UUID uuid;
+            if (symbolId != null) {
+                out.write(TAG_SYMBOL);
+                writeVarInt(out, symbolId);
+            } else if ((uuid = asUuid(text)) != null) {
+                out.write(TAG_UUID);
+                writeLong(out, uuid.getMostSignificantBits());
+                writeLong(out, uuid.getLeastSignificantBits());
+            } else {
+                out.write(TAG_STRING);
+                writeString(out, text);
+            }
+        }
+    }
+
+    /**
+     * Parses a canonical (lowercase, dashed) UUID string, anything else stays a string so it round-trips exactly
+     */
+    private static UUID asUuid(String text) {
+        if (text.length() != 36 || text.charAt(8) != '-' || text.charAt(13) != '-'
+                || text.charAt(18) != '-' || text.charAt(23) != '-') {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(text);
+            return uuid.toString().equals(text) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // ===== Decoding =====
+
+    private void readField(ByteBuffer in, byte tag, String name, MessageFields fields) {
+        switch (tag) {
+            case TAG_STRING -> fields.setString(name, readString(in));
+            case TAG_SYMBOL -> fields.setString(name, readSymbol(in));
+            case TAG_UUID -> fields.setUuid(name, new UUID(in.getLong(), in.getLong()));
+            case TAG_INT -> {
+                long value = unzigzag(readVarLong(in));
+                if (name.equals("rating") || name.endsWith("_rating")) {
+                    fields.setInt(name, (int) value);
+                } else {
+                    fields.setString(name, Long.toString(value));
+                }
+            }
+            case TAG_TRUE, TAG_FALSE -> fields.setBoolean(name, tag == TAG_TRUE);
+            default -> skipValue(in, tag, 1);
+        }
+    }
+
+    private List<MatchmakerMessage.PlayerRating> readRatings(ByteBuffer in) {
+        int count = readCount(in);
+        List<MatchmakerMessage.PlayerRating> ratings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte tag = in.get();
+            if (tag != TAG_OBJECT) {
+                skipValue(in, tag, 2);
+                continue;
+            }
+
+            UUID playerUuid = null;
+            Integer rating = null;
+            int fieldCount = readCount(in);
+            for (int f = 0; f < fieldCount; f++) {
+                String name = readKey(in);
+                byte valueTag = in.get();
+                if (name.equals("player_uuid") && valueTag == TAG_UUID) {
+                    playerUuid = new UUID(in.getLong(), in.getLong());
+                } else if (name.equals("rating") && valueTag == TAG_INT) {
+                    rating = (int) unzigzag(readVarLong(in));
+                } else {
+                    skipValue(in, valueTag, 3);
+                }
+            }
+            if (playerUuid != null && rating != null) {
+                ratings.add(new MatchmakerMessage.PlayerRating(playerUuid, rating));
+            }
+        }
+        return ratings;
+    }
+
+    private List<UUID> readUuids(ByteBuffer in) {
+        int count = readCount(in);
+        List<UUID> uuids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte tag = in.get();
+            if (tag == TAG_UUID) {
+                uuids.add(new UUID(in.getLong(), in.getLong()));
+            } else {
+                skipValue(in, tag, 2);
+            }
+        }
+        return uuids;
+    }
+
+    /**
+     * Skips one value
+     * @param depth How deep the value is nested, arrays and objects past {@link #MAX_DEPTH} are rejected
+     */
+    private void skipValue(ByteBuffer in, byte tag, int depth) {
+        switch (tag) {
+            case TAG_NULL, TAG_FALSE, TAG_TRUE -> {
+            }
+            case TAG_INT -> readVarLong(in);
+            case TAG_DOUBLE -> skipBytes(in, 8);
+            case TAG_STRING -> skipBytes(in, readLength(in));
+            case TAG_SYMBOL -> readVarInt(in);
+            case TAG_UUID -> skipBytes(in, 16);
+            case TAG_ARRAY -> {
+                checkDepth(depth);
+                int count = readCount(in);
+                for (int i = 0; i < count; i++) {
+                    skipValue(in, in.get(), depth + 1);
+                }
+            }
+            case TAG_OBJECT -> {
+                checkDepth(depth);
+                int count = readCount(in);
+                for (int i = 0; i < count; i++) {
+                    readKey(in);
+                    skipValue(in, in.get(), depth + 1);
+                }
+            }
+            default -> throw new JsonParseException("Unknown value tag " + tag);
+        }
+    }
+
+    private JsonObject readObject(ByteBuffer in, int depth) {
+        int count = readCount(in);
+        JsonObject object = new JsonObject();
+        for (int i = 0; i < count; i++) {
+            String name = readKey(in);
+            object.add(name, readValue(in, in.get(), depth + 1));
+        }
+        return object;
+    }
+
+    private JsonElement readValue(ByteBuffer in, byte tag, int depth) {
+        return switch (tag) {
+            case TAG_NULL -> JsonNull.INSTANCE;
+            case TAG_FALSE -> new JsonPrimitive(false);
+            case TAG_TRUE -> new JsonPrimitive(true);
+            case TAG_INT -> new JsonPrimitive(unzigzag(readVarLong(in)));
+            case TAG_DOUBLE -> new JsonPrimitive(Double.longBitsToDouble(in.getLong()));
+            case TAG_STRING -> new JsonPrimitive(readString(in));
+            case TAG_SYMBOL -> new JsonPrimitive(readSymbol(in));
+            case TAG_UUID -> new JsonPrimitive(new UUID(in.getLong(), in.getLong()).toString());
+            case TAG_ARRAY -> {
+                checkDepth(depth);
+                int count = readCount(in);
+                JsonArray array = new JsonArray(count);
+                for (int i = 0; i < count; i++) {
+                    array.add(readValue(in, in.get(), depth + 1));
+                }
+                yield array;
+            }
+            case TAG_OBJECT -> {
+                checkDepth(depth);
+                yield readObject(in, depth);
+            }
+            default -> throw new JsonParseException("Unknown value tag " + tag);
+        };
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth >= MAX_DEPTH) {
+            throw new JsonParseException("Binary frame nested deeper than " + MAX_DEPTH);
+        }
+    }
+
+    private static String readKey(ByteBuffer in) {
+        int key = readVarInt(in);
+        if (key == 0) {
+            return readString(in);
+        }
+        if (key > FIELDS.length) {
+            return "#" + key; // Field added by a newer server, skipped as unknown
+        }
+        return FIELDS[key - 1];
+    }
+
+    private static String readSymbol(ByteBuffer in) {
+        int id = readVarInt(in);
+        if (id >= SYMBOLS.length) {
+            throw new JsonParseException("Unknown symbol " + id);
+        }
+        return SYMBOLS[id];
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readLength(in);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a byte length, rejecting one that runs past the end of the frame
+     */
+    private static int readLength(ByteBuffer in) {
+        int length = readVarInt(in);
+        if (length > in.remaining()) {
+            throw new JsonParseException("Length " + length + " runs past the end of the frame");
+        }
+        return length;
+    }
+
+    /**
+     * Reads an element count, every element takes at least one byte so a count above the bytes left is corrupt
+     */
+    private static int readCount(ByteBuffer in) {
+        int count = readVarInt(in);
+        if (count > in.remaining()) {
+            throw new JsonParseException("Count " + count + " runs past the end of the frame");
+        }
+        return count;
+    }
+
+    private static void skipBytes(ByteBuffer in, int count) {
+        if (count > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        in.position(in.position() + count);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new JsonParseException("Varint out of range");
+        }
+        return (int) value;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new JsonParseException("Malformed varint");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,168 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import net.pixelateddream.macebattles.util.LatencyHistogram;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Health counters for the matchmaker link: ping RTT, reconnects, frame rates and queue wait times
+ * Frame counters are updated from the socket thread, everything else from the main thread.
+ */
+public class ConnectionMetrics {
+    private final LatencyHistogram pingRtt = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram(); // Queue join -> match_found
+    private final Map<String, Long> pingsInFlight = new ConcurrentHashMap<>(); // Request ID -> send time (nanos)
+
+    private final AtomicLong framesIn = new AtomicLong();
+    private final AtomicLong framesOut = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private long connects = 0;
+    private long reconnects = 0;
+    private long disconnects = 0;
+    private long pingsLost = 0;
+    private long lastPongMillis = 0;
+    private long connectedSinceMillis = 0;
+
+    // Queue reconciliation, local queue mirror vs the matchmaker's queue snapshot
+    private long reconciliations = 0;
+    private long requeuedPlayers = 0; // Queued locally but missing on the matchmaker
+    private long ghostsCancelled = 0; // Queued on the matchmaker but not locally
+    private int lastQueueDrift = 0;
+
+    // Per-second rates, refreshed by sampleRates()
+    private long lastSampleNanos = System.nanoTime();
+    private long lastFramesIn = 0;
+    private long lastFramesOut = 0;
+    private double framesInPerSecond = 0;
+    private double framesOutPerSecond = 0;
+
+    /**
+     * Snapshot of the link health at one point in time
+     */
+    public record Snapshot(boolean connected, long connectedForMillis, long connects, long reconnects, long disconnects,
+                           long framesIn, long framesOut, long bytesIn, long bytesOut,
+                           double framesInPerSecond, double framesOutPerSecond,
+                           long pings, long pingsLost, int pingsInFlight, long millisSinceLastPong,
+                           double rttMeanMillis, double rttP50Millis, double rttP99Millis, double rttMaxMillis,
+                           long matchesFound, double queueWaitMeanMillis, double queueWaitP50Millis, double queueWaitP99Millis,
+                           long reconciliations, int lastQueueDrift, long requeuedPlayers, long ghostsCancelled) {
+    }
+
+    public void frameIn(int length) {
+        framesIn.incrementAndGet();
+        bytesIn.addAndGet(length);
+    }
+
+    public void frameOut(int length) {
+        framesOut.incrementAndGet();
+        bytesOut.addAndGet(length);
+    }
+
+    /**
+     * Records a successful connection, every connection after the first counts as a reconnect
+     */
+    public void connected() {
+        if (connects > 0) {
+            reconnects++;
+        }
+        connects++;
+        connectedSinceMillis = System.currentTimeMillis();
+    }
+
+    public void disconnected() {
+        disconnects++;
+        connectedSinceMillis = 0;
+        pingsInFlight.clear();
+    }
+
+    public void pingSent(String requestId, long sentNanos) {
+        pingsInFlight.put(requestId, sentNanos);
+    }
+
+    /**
+     * Records the RTT for a pong
+     * @return The RTT in nanoseconds, or -1 if the pong matched no ping
+     */
+    public long pongReceived(String requestId, long receivedNanos) {
+        Long sentNanos = requestId != null ? pingsInFlight.remove(requestId) : null;
+        if (sentNanos == null) {
+            return -1;
+        }
+        long rtt = receivedNanos - sentNanos;
+        pingRtt.recordNanos(rtt);
+        lastPongMillis = System.currentTimeMillis();
+        return rtt;
+    }
+
+    /**
+     * Counts pings older than the timeout as lost
+     */
+    public void expirePings(long nowNanos, long timeoutNanos) {
+        Iterator<Long> iterator = pingsInFlight.values().iterator();
+        while (iterator.hasNext()) {
+            if (nowNanos - iterator.next() > timeoutNanos) {
+                iterator.remove();
+                pingsLost++;
+            }
+        }
+    }
+
+    public void matchFound(long queueWaitMillis) {
+        queueWait.recordMillis(queueWaitMillis);
+    }
+
+    /**
+     * Records one queue reconciliation and how far the two sides had drifted
+     * @param missing Players re-queued because the matchmaker had lost them
+     * @param ghosts Players cancelled on the matchmaker because they are no longer queued here
+     */
+    public void queueReconciled(int missing, int ghosts) {
+        reconciliations++;
+        requeuedPlayers += missing;
+        ghostsCancelled += ghosts;
+        lastQueueDrift = missing + ghosts;
+    }
+
+    /**
+     * Recomputes the per-second frame rates, call about once a second
+     */
+    public void sampleRates() {
+        long now = System.nanoTime();
+        double seconds = (now - lastSampleNanos) / 1_000_000_000.0;
+        if (seconds <= 0) {
+            return;
+        }
+        long in = framesIn.get();
+        long out = framesOut.get();
+        framesInPerSecond = (in - lastFramesIn) / seconds;
+        framesOutPerSecond = (out - lastFramesOut) / seconds;
+        lastFramesIn = in;
+        lastFramesOut = out;
+        lastSampleNanos = now;
+    }
+
+    public Snapshot snapshot(boolean connected) {
+        long now = System.currentTimeMillis();
+        return new Snapshot(connected, connectedSinceMillis == 0 ? 0 : now - connectedSinceMillis,
+                connects, reconnects, disconnects,
+                framesIn.get(), framesOut.get(), bytesIn.get(), bytesOut.get(),
+                framesInPerSecond, framesOutPerSecond,
+                pingRtt.getCount() + pingsLost + pingsInFlight.size(), pingsLost, pingsInFlight.size(),
+                lastPongMillis == 0 ? -1 : now - lastPongMillis,
+                pingRtt.getMeanMillis(), pingRtt.getPercentileMillis(50), pingRtt.getPercentileMillis(99), pingRtt.getMaxMillis(),
+                queueWait.getCount(), queueWait.getMeanMillis(), queueWait.getPercentileMillis(50), queueWait.getPercentileMillis(99),
+                reconciliations, lastQueueDrift, requeuedPlayers, ghostsCancelled);
+    }
+
+    public LatencyHistogram getPingRtt() {
+        return pingRtt;
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+}
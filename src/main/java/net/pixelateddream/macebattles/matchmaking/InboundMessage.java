@@ -0,0 +1,20 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+/**
+ * A matchmaking frame that was already decoded on the socket thread
+ * @param message The decoded message
+ * @param receivedNanos System.nanoTime() when the frame arrived
+ */
+public record InboundMessage(MatchmakerMessage message, long receivedNanos) {
+
+    public MessageType type() {
+        return message.type();
+    }
+
+    /**
+     * The request ID echoed by the server, or null
+     */
+    public String requestId() {
+        return message.requestId();
+    }
+}
@@ -0,0 +1,113 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free hand-off of parsed matchmaking messages from the socket thread to the main thread
+ * The main thread drains it once per tick under a message and time budget.
+ * The queue is bounded by a high-water mark: transports stop reading from the socket while the depth is at
+ * or above it (see {@link #hasRoom()}) and are resumed by the drain once it falls back under.
+ */
+public class InboundMessageQueue {
+    private final int highWater; // Depth at which the transport stops reading
+    private final Queue<InboundMessage> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong totalReceived = new AtomicLong();
+    private long totalDrained = 0;
+    private long lastDrainNanos = 0;
+    private long maxDrainNanos = 0;
+    private long budgetExhaustedCount = 0; // Ticks that left messages behind because the budget ran out
+
+    /**
+     * @param highWater Depth at which reading from the socket pauses
+     */
+    public InboundMessageQueue(int highWater) {
+        this.highWater = Math.max(1, highWater);
+    }
+
+    /**
+     * Adds a message (called from the socket thread)
+     */
+    public void offer(InboundMessage message) {
+        queue.offer(message);
+        totalReceived.incrementAndGet();
+        int current = depth.incrementAndGet();
+        maxDepth.accumulateAndGet(current, Math::max);
+    }
+
+    /**
+     * Hands queued messages to the handler until the queue is empty or the budget is used up
+     * Must be called from the main thread
+     * @param handler Message handler
+     * @param maxMessages Maximum messages to handle this call
+     * @param maxNanos Maximum time to spend this call
+     * @return Number of messages handled
+     */
+    public int drain(Consumer<InboundMessage> handler, int maxMessages, long maxNanos) {
+        long start = System.nanoTime();
+        int handled = 0;
+        InboundMessage message;
+        while (handled < maxMessages && (message = queue.poll()) != null) {
+            depth.decrementAndGet();
+            handled++;
+            handler.accept(message);
+            if (System.nanoTime() - start >= maxNanos) {
+                break;
+            }
+        }
+
+        if (handled > 0) {
+            lastDrainNanos = System.nanoTime() - start;
+            maxDrainNanos = Math.max(maxDrainNanos, lastDrainNanos);
+            totalDrained += handled;
+            if (!queue.isEmpty()) {
+                budgetExhaustedCount++;
+            }
+        }
+        return handled;
+    }
+
+    /**
+     * Checks whether the depth is below the high-water mark (safe from any thread)
+     */
+    public boolean hasRoom() {
+        return depth.get() < highWater;
+    }
+
+    public int getHighWater() {
+        return highWater;
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    public long getTotalReceived() {
+        return totalReceived.get();
+    }
+
+    public long getTotalDrained() {
+        return totalDrained;
+    }
+
+    public long getLastDrainNanos() {
+        return lastDrainNanos;
+    }
+
+    public long getMaxDrainNanos() {
+        return maxDrainNanos;
+    }
+
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount;
+    }
+}
@@ -0,0 +1,167 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.handshake.ServerHandshake;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+/**
+ * Transport on the shaded Java-WebSocket client (one blocking read thread per connection)
+ * A new client is created for every connection attempt, since reconnect() on a used client blocks the caller
+ * while it closes the old connection and joins its threads.
+ * The client has no demand API, so backpressure parks the read thread while the listener is full: unread
+ * frames then stay in the socket and the server's TCP window instead of in memory.
+ */
+public class JavaWebSocketTransport implements MatchmakerTransport {
+    private static final long PAUSE_RECHECK_MILLIS = 1000; // Parked read thread rechecks the connection this often
+
+    private final URI uri;
+    private final boolean compression;
+    private final Listener listener;
+    private final Object readLock = new Object(); // Parks the read thread while the listener is full
+    private volatile WebSocketClient client; // Current connection attempt, null before the first
+
+    /**
+     * @param compression Offer permessage-deflate in the handshake
+     */
+    public JavaWebSocketTransport(URI uri, boolean compression, Listener listener) {
+        this.uri = uri;
+        this.compression = compression;
+        this.listener = listener;
+    }
+
+    /**
+     * Creates the client for one connection attempt
+     * Events of a client that has been replaced are dropped.
+     */
+    private WebSocketClient createClient() {
+        // permessage-deflate is negotiated in the handshake, a server without it just gets uncompressed frames
+        Draft_6455 draft = compression ? new Draft_6455(new PerMessageDeflateExtension()) : new Draft_6455();
+        return new WebSocketClient(uri, draft) {
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                if (client == this) {
+                    listener.onOpen();
+                }
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (client == this) {
+                    listener.onText(message);
+                    awaitCapacity(this);
+                }
+            }
+
+            @Override
+            public void onMessage(ByteBuffer bytes) {
+                if (client == this) {
+                    listener.onBinary(bytes);
+                    awaitCapacity(this);
+                }
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+                if (client == this) {
+                    listener.onClose(code, reason, remote);
+                }
+            }
+
+            @Override
+            public void onError(Exception ex) {
+                if (client == this) {
+                    listener.onError(ex);
+                }
+            }
+        };
+    }
+
+    /**
+     * Blocks the read thread until the listener can take another message or the connection closes
+     */
+    private void awaitCapacity(WebSocketClient reading) {
+        synchronized (readLock) {
+            while (!listener.canAccept() && reading.isOpen() && client == reading) {
+                try {
+                    readLock.wait(PAUSE_RECHECK_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void resumeReading() {
+        synchronized (readLock) {
+            readLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void connect() {
+        WebSocketClient previous = client;
+        client = createClient();
+        if (previous != null && !previous.isClosed()) {
+            previous.close(); // Starts the close handshake without waiting for it
+        }
+        resumeReading(); // A read thread parked on the previous client sees it was replaced
+        client.connect();
+    }
+
+    @Override
+    public boolean isOpen() {
+        WebSocketClient current = client;
+        return current != null && current.isOpen();
+    }
+
+    @Override
+    public void sendText(String message) {
+        requireClient().send(message);
+    }
+
+    @Override
+    public void sendBinary(byte[] message) {
+        requireClient().send(message);
+    }
+
+    private WebSocketClient requireClient() {
+        WebSocketClient current = client;
+        if (current == null) {
+            throw new IllegalStateException("WebSocket is not connected");
+        }
+        return current;
+    }
+
+    @Override
+    public boolean hasBufferedData() {
+        WebSocketClient current = client;
+        return current != null && current.hasBufferedData();
+    }
+
+    @Override
+    public boolean isCompressionActive() {
+        WebSocketClient current = client;
+        return current != null && current.getDraft() instanceof Draft_6455 draft
+                && draft.getExtension() instanceof PerMessageDeflateExtension;
+    }
+
+    @Override
+    public void close() {
+        WebSocketClient current = client;
+        if (current != null && current.isOpen()) {
+            current.close();
+        }
+        resumeReading(); // Let a parked read thread see the close
+    }
+
+    @Override
+    public String getName() {
+        return "java-websocket";
+    }
+}
@@ -0,0 +1,220 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Transport on the JDK's java.net.http WebSocket, with callbacks on virtual threads
+ *
+ * Backpressure: one frame is requested at a time, and the next only after the previous one was handed to
+ * the listener and the listener can take more. Otherwise demand stops until {@link #resumeReading()}, so a
+ * flood of frames waits in the socket (and the server's TCP window) instead of piling up in memory.
+ * Sends are chained because the JDK WebSocket allows only one outstanding send.
+ * permessage-deflate is not supported by the JDK client.
+ */
+public class JdkWebSocketTransport implements MatchmakerTransport {
+    private final URI uri;
+    private final Listener listener;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final AtomicInteger sendsInFlight = new AtomicInteger();
+    private final AtomicBoolean readPaused = new AtomicBoolean(); // No frame requested because the listener was full
+    private volatile WebSocket webSocket;
+    private CompletableFuture<?> sendChain = CompletableFuture.completedFuture(null); // Guarded by this
+
+    public JdkWebSocketTransport(URI uri, Listener listener) {
+        this.uri = uri;
+        this.listener = listener;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public void connect() {
+        httpClient.newWebSocketBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .buildAsync(uri, new SocketListener())
+                .whenComplete((socket, error) -> {
+                    if (error != null) {
+                        Exception cause = error instanceof Exception e ? e : new RuntimeException(error);
+                        listener.onError(cause);
+                        listener.onClose(-1, String.valueOf(cause.getMessage()), false);
+                    }
+                });
+    }
+
+    @Override
+    public boolean isOpen() {
+        WebSocket socket = webSocket;
+        return socket != null && !socket.isOutputClosed() && !socket.isInputClosed();
+    }
+
+    @Override
+    public void sendText(String message) {
+        WebSocket socket = requireOpen();
+        enqueueSend(() -> socket.sendText(message, true));
+    }
+
+    @Override
+    public void sendBinary(byte[] message) {
+        WebSocket socket = requireOpen();
+        enqueueSend(() -> socket.sendBinary(ByteBuffer.wrap(message), true));
+    }
+
+    private WebSocket requireOpen() {
+        WebSocket socket = webSocket;
+        if (socket == null || socket.isOutputClosed()) {
+            throw new IllegalStateException("WebSocket is not connected");
+        }
+        return socket;
+    }
+
+    /**
+     * Queues a send behind the previous one
+     */
+    private synchronized void enqueueSend(Supplier<CompletableFuture<WebSocket>> send) {
+        sendsInFlight.incrementAndGet();
+        sendChain = sendChain
+                .handle((ignored, error) -> null)
+                .thenCompose(ignored -> send.get())
+                .whenComplete((socket, error) -> {
+                    sendsInFlight.decrementAndGet();
+                    if (error != null) {
+                        listener.onError(error instanceof Exception e ? e : new RuntimeException(error));
+                    }
+                });
+    }
+
+    /**
+     * Requests the next frame, or marks reading as paused if the listener is full
+     */
+    private void requestNext(WebSocket socket) {
+        if (listener.canAccept()) {
+            socket.request(1);
+            return;
+        }
+        readPaused.set(true);
+        // The drain may have made room between the check and the flag, take the resume ourselves then
+        if (listener.canAccept() && readPaused.compareAndSet(true, false)) {
+            socket.request(1);
+        }
+    }
+
+    @Override
+    public void resumeReading() {
+        WebSocket socket = webSocket;
+        if (socket != null && listener.canAccept() && readPaused.compareAndSet(true, false)) {
+            socket.request(1);
+        }
+    }
+
+    @Override
+    public boolean hasBufferedData() {
+        return sendsInFlight.get() > 0;
+    }
+
+    @Override
+    public boolean isCompressionActive() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        WebSocket socket = webSocket;
+        if (socket != null && !socket.isOutputClosed()) {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "").orTimeout(2, TimeUnit.SECONDS)
+                    .whenComplete((ignored, error) -> socket.abort());
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public String getName() {
+        return "jdk";
+    }
+
+    /**
+     * Reassembles partial frames and forwards complete messages
+     */
+    private class SocketListener implements WebSocket.Listener {
+        private final StringBuilder text = new StringBuilder();
+        private final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+        @Override
+        public void onOpen(WebSocket socket) {
+            webSocket = socket;
+            readPaused.set(false);
+            listener.onOpen();
+            socket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                String message = text.toString();
+                text.setLength(0);
+                listener.onText(message);
+            }
+            requestNext(socket);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket socket, ByteBuffer data, boolean last) {
+            byte[] chunk = new byte[data.remaining()];
+            data.get(chunk);
+            binary.write(chunk, 0, chunk.length);
+            if (last) {
+                ByteBuffer message = ByteBuffer.wrap(binary.toByteArray());
+                binary.reset();
+                listener.onBinary(message);
+            }
+            requestNext(socket);
+            return null;
+        }
+
+        // Control frames use up a request too, the defaults would request another even while reading is paused
+
+        @Override
+        public CompletionStage<?> onPing(WebSocket socket, ByteBuffer message) {
+            requestNext(socket); // The JDK answers with a pong on its own
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPong(WebSocket socket, ByteBuffer message) {
+            requestNext(socket);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+            webSocket = null;
+            listener.onClose(statusCode, reason, true);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            webSocket = null;
+            Exception cause = error instanceof Exception e ? e : new RuntimeException(error);
+            listener.onError(cause);
+            listener.onClose(1006, String.valueOf(cause.getMessage()), true);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import net.pixelateddream.macebattles.misc.MatchmakingListener.QueueType;
+
+import java.util.*;
+
+/**
+ * In-process matchmaker used while the remote matchmaking server is unreachable
+ * Players are kept in rating buckets per queue type; finding the closest opponent is a
+ * TreeMap floor/ceiling lookup (O(log n)) and the accepted rating gap widens the longer a player waits
+ */
+public class LocalMatchmaker {
+
+    /**
+     * Receives pairings produced by the local matchmaker
+     */
+    public interface MatchFoundHandler {
+        void onMatchFound(String matchId, UUID player1UUID, UUID player2UUID, QueueType queueType);
+    }
+
+    private static final class Entry {
+        final UUID playerUUID;
+        final QueueType queueType;
+        final int rating;
+        final int bucket;
+        final long queuedAt;
+
+        Entry(UUID playerUUID, QueueType queueType, int rating, int bucket, long queuedAt) {
+            this.playerUUID = playerUUID;
+            this.queueType = queueType;
+            this.rating = rating;
+            this.bucket = bucket;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private final Map<QueueType, NavigableMap<Integer, ArrayDeque<Entry>>> buckets = new EnumMap<>(QueueType.class);
+    private final Map<UUID, Entry> entries = new LinkedHashMap<>(); // Insertion order = queue order
+    private final MatchFoundHandler handler;
+    private final int bucketWidth;
+    private final int initialWindow;
+    private final int widenPerSecond;
+    private final int maxWindow;
+
+    /**
+     * @param handler Receives every pairing
+     * @param bucketWidth Rating points per bucket
+     * @param initialWindow Rating gap accepted right after queueing
+     * @param widenPerSecond Extra rating gap accepted per second of waiting
+     * @param maxWindow Largest rating gap ever accepted
+     */
+    public LocalMatchmaker(MatchFoundHandler handler, int bucketWidth, int initialWindow, int widenPerSecond, int maxWindow) {
+        this.handler = handler;
+        this.bucketWidth = Math.max(1, bucketWidth);
+        this.initialWindow = Math.max(0, initialWindow);
+        this.widenPerSecond = Math.max(0, widenPerSecond);
+        this.maxWindow = Math.max(this.initialWindow, maxWindow);
+        for (QueueType queueType : QueueType.values()) {
+            buckets.put(queueType, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Queues a player, pairing them straight away if an opponent is already in range
+     * @param queuedAt When the player originally queued (kept when moving players over from the remote queue)
+     */
+    public void queue(UUID playerUUID, QueueType queueType, int rating, long queuedAt) {
+        dequeue(playerUUID);
+
+        // Casual ignores rating, everyone shares one bucket and is paired first come first served
+        int effectiveRating = queueType == QueueType.CASUAL ? 0 : rating;
+        Entry entry = new Entry(playerUUID, queueType, effectiveRating, Math.floorDiv(effectiveRating, bucketWidth), queuedAt);
+
+        Entry opponent = findOpponent(entry, windowFor(entry, System.currentTimeMillis()));
+        if (opponent != null) {
+            remove(opponent);
+            emit(opponent, entry);
+            return;
+        }
+
+        entries.put(playerUUID, entry);
+        buckets.get(queueType).computeIfAbsent(entry.bucket, k -> new ArrayDeque<>()).addLast(entry);
+    }
+
+    /**
+     * Removes a player from the local queue
+     * @return true if the player was queued locally
+     */
+    public boolean dequeue(UUID playerUUID) {
+        Entry entry = entries.get(playerUUID);
+        if (entry == null) {
+            return false;
+        }
+        remove(entry);
+        return true;
+    }
+
+    public boolean isQueued(UUID playerUUID) {
+        return entries.containsKey(playerUUID);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes and returns every queued player (used to hand them back to the remote matchmaker)
+     */
+    public List<UUID> drainAll() {
+        List<UUID> drained = new ArrayList<>(entries.keySet());
+        clear();
+        return drained;
+    }
+
+    public void clear() {
+        entries.clear();
+        for (NavigableMap<Integer, ArrayDeque<Entry>> queueBuckets : buckets.values()) {
+            queueBuckets.clear();
+        }
+    }
+
+    /**
+     * Retries pairing for waiting players with their widened windows (call about once a second)
+     */
+    public void tick(long now) {
+        if (entries.size() < 2) {
+            return;
+        }
+
+        // Oldest players get the first pick
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            if (!entries.containsKey(entry.playerUUID)) {
+                continue; // Paired earlier in this pass
+            }
+            Entry opponent = findOpponent(entry, windowFor(entry, now));
+            if (opponent != null) {
+                remove(entry);
+                remove(opponent);
+                emit(entry, opponent);
+            }
+        }
+    }
+
+    private int windowFor(Entry entry, long now) {
+        long waitedSeconds = Math.max(0L, (now - entry.queuedAt) / 1000L);
+        return (int) Math.min(maxWindow, initialWindow + waitedSeconds * widenPerSecond);
+    }
+
+    /**
+     * Finds the closest-rated waiting player within the window, walking outwards from the player's bucket
+     */
+    private Entry findOpponent(Entry entry, int window) {
+        NavigableMap<Integer, ArrayDeque<Entry>> queueBuckets = buckets.get(entry.queueType);
+        int lowBucket = Math.floorDiv(entry.rating - window, bucketWidth);
+        int highBucket = Math.floorDiv(entry.rating + window, bucketWidth);
+
+        Map.Entry<Integer, ArrayDeque<Entry>> up = queueBuckets.ceilingEntry(entry.bucket);
+        Map.Entry<Integer, ArrayDeque<Entry>> down = queueBuckets.lowerEntry(entry.bucket);
+        while (up != null || down != null) {
+            boolean upInRange = up != null && up.getKey() <= highBucket;
+            boolean downInRange = down != null && down.getKey() >= lowBucket;
+            if (!upInRange && !downInRange) {
+                return null;
+            }
+
+            boolean takeUp = upInRange && (!downInRange || up.getKey() - entry.bucket <= entry.bucket - down.getKey());
+            Map.Entry<Integer, ArrayDeque<Entry>> candidateBucket = takeUp ? up : down;
+            for (Entry candidate : candidateBucket.getValue()) {
+                if (candidate != entry && Math.abs(candidate.rating - entry.rating) <= window) {
+                    return candidate;
+                }
+            }
+
+            if (takeUp) {
+                up = queueBuckets.higherEntry(up.getKey());
+            } else {
+                down = queueBuckets.lowerEntry(down.getKey());
+            }
+        }
+        return null;
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.playerUUID);
+        NavigableMap<Integer, ArrayDeque<Entry>> queueBuckets = buckets.get(entry.queueType);
+        ArrayDeque<Entry> bucket = queueBuckets.get(entry.bucket);
+        if (bucket != null) {
+            bucket.remove(entry);
+            if (bucket.isEmpty()) {
+                queueBuckets.remove(entry.bucket);
+            }
+        }
+    }
+
+    private void emit(Entry first, Entry second) {
+        handler.onMatchFound(UUID.randomUUID().toString(), first.playerUUID, second.playerUUID, first.queueType);
+    }
+}
@@ -0,0 +1,245 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Durable outbox for ranked match results
+ * Results are appended to a file before they are sent and marked done when the server confirms them,
+ * so results are never lost while the matchmaking server is unreachable.
+ * The pending set lives on the main thread; file writes, fsyncs and compaction run in order on a
+ * single writer thread so disk latency never lands in a tick.
+ */
+public class MatchResultOutbox {
+    private static final int COMPACT_AFTER_DONE = 256; // Rewrite the file after this many done markers
+
+    private final File outboxFile;
+    private final Gson gson;
+    private final Logger logger;
+    private final Map<String, JsonObject> pending = new LinkedHashMap<>(); // Match UUID -> result, in record order
+    private final ExecutorService writer; // Single thread, keeps file writes in submission order
+    private OutputStream out; // Only used on the writer thread
+    private int doneSinceCompact = 0;
+
+    public MatchResultOutbox(File dataFolder, Logger logger) {
+        this.logger = logger;
+        this.gson = new Gson();
+
+        // Create plugin data folder if it doesn't exist
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+
+        this.outboxFile = new File(dataFolder, "match_results_outbox.jsonl");
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "macebattles-outbox-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        load();
+        compact();
+    }
+
+    /**
+     * Rebuilds the pending set from the append-only file
+     */
+    private void load() {
+        if (!outboxFile.exists()) {
+            return;
+        }
+
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(outboxFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonObject entry = JsonParser.parseString(line).getAsJsonObject();
+                    String matchUuid = entry.get("match_uuid").getAsString();
+                    if (entry.get("op").getAsString().equals("record")) {
+                        pending.putIfAbsent(matchUuid, entry.getAsJsonObject("result"));
+                    } else {
+                        pending.remove(matchUuid);
+                    }
+                } catch (Exception e) {
+                    // Most likely a partial line from a crash mid-write
+                    logger.warning("Skipping unreadable match result outbox line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.severe("Failed to read match result outbox: " + e.getMessage());
+        }
+
+        if (!pending.isEmpty()) {
+            logger.info("Loaded " + pending.size() + " unsent match result(s) from outbox");
+        }
+    }
+
+    /**
+     * Records a result before it is sent
+     * Recording the same match twice is ignored
+     * @param result The match_result message (must contain match_uuid)
+     */
+    public void record(JsonObject result) {
+        String matchUuid = result.get("match_uuid").getAsString();
+        if (pending.containsKey(matchUuid)) {
+            return;
+        }
+
+        JsonObject entry = new JsonObject();
+        entry.addProperty("op", "record");
+        entry.addProperty("match_uuid", matchUuid);
+        entry.add("result", result.deepCopy());
+        pending.put(matchUuid, entry.getAsJsonObject("result"));
+        append(entry, true);
+    }
+
+    /**
+     * Marks a result as processed by the server
+     * @return The recorded result, or null if it was not pending
+     */
+    public JsonObject markDone(String matchUuid) {
+        JsonObject result = pending.remove(matchUuid);
+        if (result == null) {
+            return null;
+        }
+
+        JsonObject entry = new JsonObject();
+        entry.addProperty("op", "done");
+        entry.addProperty("match_uuid", matchUuid);
+        append(entry, false);
+
+        if (++doneSinceCompact >= COMPACT_AFTER_DONE) {
+            compact();
+        }
+        return result;
+    }
+
+    /**
+     * Gets every unconfirmed result in the order it was recorded
+     */
+    public List<JsonObject> getPendingResults() {
+        List<JsonObject> results = new ArrayList<>(pending.size());
+        for (JsonObject result : pending.values()) {
+            results.add(result.deepCopy());
+        }
+        return results;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Queues one entry for appending, synced to disk for records so a crash cannot lose a result
+     * The entry is serialized here so the writer thread never touches shared JSON objects.
+     */
+    private void append(JsonObject entry, boolean sync) {
+        byte[] line = (gson.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        writer.execute(() -> {
+            try {
+                if (out == null) {
+                    out = new FileOutputStream(outboxFile, true);
+                }
+                out.write(line);
+                out.flush();
+                if (sync && out instanceof FileOutputStream fileOut) {
+                    fileOut.getFD().sync();
+                }
+            } catch (IOException e) {
+                logger.severe("Failed to write match result outbox: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Queues a rewrite of the file with only the pending results so it does not grow forever
+     */
+    private void compact() {
+        // Snapshot on the main thread, appends queued after this land in the rewritten file
+        List<byte[]> lines = new ArrayList<>(pending.size());
+        for (Map.Entry<String, JsonObject> result : pending.entrySet()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("op", "record");
+            entry.addProperty("match_uuid", result.getKey());
+            entry.add("result", result.getValue());
+            lines.add((gson.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        doneSinceCompact = 0;
+
+        writer.execute(() -> {
+            closeStream();
+            File tempFile = new File(outboxFile.getParentFile(), outboxFile.getName() + ".tmp");
+            try (FileOutputStream tempOut = new FileOutputStream(tempFile)) {
+                for (byte[] line : lines) {
+                    tempOut.write(line);
+                }
+                tempOut.getFD().sync();
+            } catch (IOException e) {
+                logger.severe("Failed to compact match result outbox: " + e.getMessage());
+                return;
+            }
+
+            try {
+                Files.move(tempFile.toPath(), outboxFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.severe("Failed to replace match result outbox: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Waits for queued writes, closes the outbox file and stops the writer thread
+     * Called once on shutdown, the outbox takes no writes after this.
+     */
+    public void close() {
+        try {
+            writer.submit(this::closeStream).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warning("Match result outbox writes did not finish: " + e.getMessage());
+        }
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warning("Match result outbox writer did not stop in time");
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeStream() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close match result outbox: " + e.getMessage());
+            }
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Typed messages received from the matchmaking server
+ * Decoded once on the socket thread by {@link MatchmakerMessageAdapter}, handlers never touch raw JSON.
+ */
+public sealed interface MatchmakerMessage {
+
+    MessageType type();
+
+    /**
+     * The request ID echoed by the server, or null for unsolicited messages
+     */
+    String requestId();
+
+    /**
+     * Queue confirmation
+     * @param local True if the local fallback matchmaker produced it
+     */
+    record Queued(String requestId, UUID playerUuid, String mode, int rating, boolean local) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.QUEUED; }
+    }
+
+    /**
+     * Two players were paired
+     * @param mode casual or ranked, null if the server did not say
+     * @param targetNode The node the match was routed to, null if any node may host it
+     */
+    record MatchFound(String requestId, String matchUuid, UUID player1Uuid, UUID player2Uuid,
+                      String mode, String targetNode) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.MATCH_FOUND; }
+    }
+
+    /**
+     * The server applied a match result
+     * Ranked results carry both new ratings, casual results only a message
+     */
+    record ResultProcessed(String requestId, String matchUuid, Integer player1NewRating, Integer player2NewRating,
+                           String message) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.RESULT_PROCESSED; }
+
+        public boolean ranked() {
+            return player1NewRating != null && player2NewRating != null;
+        }
+    }
+
+    record QueueCancelled(String requestId, UUID playerUuid, String message, boolean local) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.QUEUE_CANCELLED; }
+    }
+
+    record RatingResponse(String requestId, UUID playerUuid, int rating) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.RATING_RESPONSE; }
+    }
+
+    record RatingsResponse(String requestId, List<PlayerRating> ratings) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.RATINGS_RESPONSE; }
+    }
+
+    record PlayerRating(UUID playerUuid, int rating) {
+    }
+
+    record Pong(String requestId) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.PONG; }
+    }
+
+    /**
+     * Answer to our hello, fixes the wire format for the rest of the connection
+     * @param format The format the server picked (see {@link WireFormat})
+     * @param compression Whether permessage-deflate is in use
+     */
+    record HelloAck(String requestId, String format, boolean compression, boolean batching) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.HELLO_ACK; }
+    }
+
+    /**
+     * @param playerUuid The player the error concerns, null if the server did not say
+     */
+    record Error(String requestId, UUID playerUuid, String message) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.ERROR; }
+    }
+
+    /**
+     * The players the matchmaker holds in queue for this node
+     */
+    record QueueSnapshot(String requestId, List<UUID> playerUuids) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.QUEUE_SNAPSHOT; }
+    }
+
+    /**
+     * A message type this plugin does not know about
+     */
+    record Unknown(String requestId, String wireType) implements MatchmakerMessage {
+        public MessageType type() { return MessageType.UNKNOWN; }
+    }
+}
@@ -0,0 +1,164 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streaming Gson decoder for {@link MatchmakerMessage}
+ * Reads each frame in a single pass straight into the typed record, without building a JsonObject tree.
+ * Fields may arrive in any order, unknown fields are skipped.
+ * Decode only, outbound messages are built as JSON (so this is deliberately not a Gson TypeAdapter).
+ */
+public class MatchmakerMessageAdapter {
+
+    /**
+     * Decodes one frame
+     * @throws JsonParseException if the frame is malformed or misses a required field
+     */
+    public MatchmakerMessage decode(String frame) {
+        try {
+            return read(new JsonReader(new StringReader(frame)));
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonParseException(e);
+        }
+    }
+
+    /**
+     * Reads one message object from the stream
+     */
+    public MatchmakerMessage read(JsonReader in) throws IOException {
+        MessageFields fields = new MessageFields();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "rating", "player1_new_rating", "player2_new_rating" -> fields.setInt(name, nextInt(in));
+                case "compression", "batching" -> fields.setBoolean(name, nextBoolean(in));
+                case "ratings" -> fields.ratings = readRatings(in);
+                case "player_uuids" -> fields.playerUuids = readUuids(in);
+                default -> {
+                    if (MessageFields.isKnown(name)) {
+                        fields.setString(name, nextString(in));
+                    } else {
+                        in.skipValue();
+                    }
+                }
+            }
+        }
+        in.endObject();
+
+        return fields.build();
+    }
+
+    /**
+     * Reads the ratings array of a ratings_response, dropping malformed entries
+     */
+    private List<MatchmakerMessage.PlayerRating> readRatings(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<MatchmakerMessage.PlayerRating> ratings = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            MatchmakerMessage.PlayerRating entry = readRating(in);
+            if (entry != null) {
+                ratings.add(entry);
+            }
+        }
+        in.endArray();
+        return ratings;
+    }
+
+    /**
+     * Reads the player_uuids array of a queue_snapshot, dropping entries that are not valid UUIDs
+     */
+    private static List<UUID> readUuids(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+
+        List<UUID> uuids = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.STRING) {
+                in.skipValue();
+                continue;
+            }
+            try {
+                uuids.add(nextUuid(in));
+            } catch (JsonParseException e) {
+                // Skip malformed entry
+            }
+        }
+        in.endArray();
+        return uuids;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static Integer nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    private static Boolean nextBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextBoolean();
+    }
+
+    private static UUID nextUuid(JsonReader in) throws IOException {
+        return MessageFields.parseUuid(nextString(in));
+    }
+
+    /**
+     * Reads one {player_uuid, rating} entry, returns null for entries missing either field
+     */
+    private static MatchmakerMessage.PlayerRating readRating(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            return null;
+        }
+
+        UUID playerUuid = null;
+        Integer rating = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "player_uuid" -> {
+                    try {
+                        playerUuid = nextUuid(in);
+                    } catch (JsonParseException e) {
+                        playerUuid = null;
+                    }
+                }
+                case "rating" -> rating = nextInt(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return playerUuid != null && rating != null ? new MatchmakerMessage.PlayerRating(playerUuid, rating) : null;
+    }
+}
@@ -0,0 +1,78 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+/**
+ * Connection to the matchmaking server
+ * Callbacks run on the transport's own thread, never on the main server thread.
+ */
+public interface MatchmakerTransport {
+
+    /**
+     * Receives connection events
+     */
+    interface Listener {
+        void onOpen();
+
+        void onText(String message);
+
+        void onBinary(ByteBuffer message);
+
+        /**
+         * Called once per connection attempt that ends, including attempts that never opened
+         */
+        void onClose(int code, String reason, boolean remote);
+
+        void onError(Exception error);
+
+        /**
+         * Checks whether the listener can take another message now
+         * While false the transport stops reading until {@link MatchmakerTransport#resumeReading()}.
+         */
+        boolean canAccept();
+    }
+
+    /**
+     * Creates a transport in place of the one picked in config (e.g. a stand-in matchmaker in tests)
+     */
+    @FunctionalInterface
+    interface Factory {
+        MatchmakerTransport create(URI uri, Listener listener);
+    }
+
+    /**
+     * Starts connecting without blocking, the result arrives through the listener
+     * May be called again after onClose to reconnect.
+     */
+    void connect();
+
+    boolean isOpen();
+
+    void sendText(String message);
+
+    void sendBinary(byte[] message);
+
+    /**
+     * Starts reading again after {@link Listener#canAccept()} returned false (no-op if reading isn't paused)
+     * Called from the main thread.
+     */
+    void resumeReading();
+
+    /**
+     * Checks whether earlier sends are still waiting to be written to the socket
+     */
+    boolean hasBufferedData();
+
+    /**
+     * Checks whether permessage-deflate was negotiated on the current connection
+     */
+    boolean isCompressionActive();
+
+    void close();
+
+    /**
+     * Gets the transport's config name
+     */
+    String getName();
+}
@@ -0,0 +1,10 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+/**
+ * Thrown (or used to complete a request future) when the matchmaking server answers with an error
+ */
+public class MatchmakingException extends Exception {
+    public MatchmakingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import net.pixelateddream.macebattles.util.LatencyHistogram;
+
+/**
+ * Precomputed dispatch table from message type to handler
+ * Handlers are looked up by {@link MessageType} ordinal and timed per type.
+ * Must be used from the main thread.
+ */
+public class MessageDispatcher {
+
+    @FunctionalInterface
+    public interface Handler<T extends MatchmakerMessage> {
+        /**
+         * @param request The request this message answers, or null
+         */
+        void handle(T message, PendingRequest request);
+    }
+
+    private final Handler<?>[] handlers = new Handler<?>[MessageType.values().length];
+    private final LatencyHistogram[] latency = new LatencyHistogram[MessageType.values().length];
+
+    public MessageDispatcher() {
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Registers the handler for a message type, replacing any previous one
+     */
+    public <T extends MatchmakerMessage> MessageDispatcher on(MessageType type, Class<T> messageClass, Handler<T> handler) {
+        handlers[type.ordinal()] = (Handler<MatchmakerMessage>) (message, request) -> handler.handle(messageClass.cast(message), request);
+        return this;
+    }
+
+    /**
+     * Hands a message to its handler and records how long the handler took
+     * @return false if no handler is registered for the message type
+     */
+    @SuppressWarnings("unchecked")
+    public boolean dispatch(MatchmakerMessage message, PendingRequest request) {
+        int index = message.type().ordinal();
+        Handler<MatchmakerMessage> handler = (Handler<MatchmakerMessage>) handlers[index];
+        if (handler == null) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        try {
+            handler.handle(message, request);
+        } finally {
+            latency[index].recordNanos(System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the handler latency histogram for a message type
+     */
+    public LatencyHistogram getLatency(MessageType type) {
+        return latency[type.ordinal()];
+    }
+}
@@ -0,0 +1,144 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import com.google.gson.JsonParseException;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fields collected while decoding one inbound frame, shared by the JSON and binary decoders
+ * Fields may arrive in any order, {@link #build()} turns them into the typed message once the frame is read.
+ */
+final class MessageFields {
+    String type;
+    String requestId;
+    String matchUuid;
+    String mode;
+    String message;
+    String targetNode;
+    String format;
+    UUID playerUuid;
+    UUID player1Uuid;
+    UUID player2Uuid;
+    Integer rating;
+    Integer player1NewRating;
+    Integer player2NewRating;
+    Boolean compression;
+    Boolean batching;
+    List<MatchmakerMessage.PlayerRating> ratings;
+    List<UUID> playerUuids;
+
+    /**
+     * Checks whether a field name is one this decoder keeps (everything else is skipped)
+     */
+    static boolean isKnown(String name) {
+        return switch (name) {
+            case "type", "request_id", "match_uuid", "mode", "message", "target_node", "format",
+                 "player_uuid", "player1_uuid", "player2_uuid", "rating", "player1_new_rating",
+                 "player2_new_rating", "compression", "batching", "ratings", "player_uuids" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Sets a string field, UUID fields are parsed
+     */
+    void setString(String name, String value) {
+        switch (name) {
+            case "type" -> type = value;
+            case "request_id" -> requestId = value;
+            case "match_uuid" -> matchUuid = value;
+            case "mode" -> mode = value;
+            case "message" -> message = value;
+            case "target_node" -> targetNode = value;
+            case "format" -> format = value;
+            case "player_uuid", "player1_uuid", "player2_uuid" -> setUuid(name, parseUuid(value));
+            default -> {
+            }
+        }
+    }
+
+    void setUuid(String name, UUID value) {
+        switch (name) {
+            case "player_uuid" -> playerUuid = value;
+            case "player1_uuid" -> player1Uuid = value;
+            case "player2_uuid" -> player2Uuid = value;
+            case "match_uuid", "request_id", "type", "mode", "message", "target_node", "format" ->
+                    setString(name, value != null ? value.toString() : null);
+            default -> {
+            }
+        }
+    }
+
+    void setInt(String name, Integer value) {
+        switch (name) {
+            case "rating" -> rating = value;
+            case "player1_new_rating" -> player1NewRating = value;
+            case "player2_new_rating" -> player2NewRating = value;
+            default -> {
+            }
+        }
+    }
+
+    void setBoolean(String name, Boolean value) {
+        if (name.equals("compression")) {
+            compression = value;
+        } else if (name.equals("batching")) {
+            batching = value;
+        }
+    }
+
+    static UUID parseUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Invalid UUID: " + value);
+        }
+    }
+
+    /**
+     * Builds the typed message
+     * @throws JsonParseException if the type is missing or a required field is absent
+     */
+    MatchmakerMessage build() {
+        if (type == null) {
+            throw new JsonParseException("Matchmaking message has no type");
+        }
+
+        return switch (MessageType.fromWireName(type)) {
+            case QUEUED -> new MatchmakerMessage.Queued(requestId, playerUuid,
+                    mode != null ? mode : "casual", rating != null ? rating : 0, false);
+            case MATCH_FOUND -> {
+                if (matchUuid == null || player1Uuid == null || player2Uuid == null) {
+                    throw new JsonParseException("match_found is missing match_uuid or player UUIDs");
+                }
+                yield new MatchmakerMessage.MatchFound(requestId, matchUuid, player1Uuid, player2Uuid, mode, targetNode);
+            }
+            case RESULT_PROCESSED -> {
+                if (matchUuid == null) {
+                    throw new JsonParseException("result_processed is missing match_uuid");
+                }
+                yield new MatchmakerMessage.ResultProcessed(requestId, matchUuid, player1NewRating, player2NewRating,
+                        message != null ? message : "Result recorded");
+            }
+            case QUEUE_CANCELLED -> new MatchmakerMessage.QueueCancelled(requestId, playerUuid,
+                    message != null ? message : "Removed from queue", false);
+            case RATING_RESPONSE -> {
+                if (playerUuid == null || rating == null) {
+                    throw new JsonParseException("Incomplete rating_response");
+                }
+                yield new MatchmakerMessage.RatingResponse(requestId, playerUuid, rating);
+            }
+            case RATINGS_RESPONSE -> new MatchmakerMessage.RatingsResponse(requestId, ratings != null ? ratings : List.of());
+            case PONG -> new MatchmakerMessage.Pong(requestId);
+            case HELLO_ACK -> new MatchmakerMessage.HelloAck(requestId, format != null ? format : WireFormat.JSON.getName(),
+                    compression != null && compression, batching != null && batching);
+            case QUEUE_SNAPSHOT -> new MatchmakerMessage.QueueSnapshot(requestId, playerUuids != null ? playerUuids : List.of());
+            case ERROR -> new MatchmakerMessage.Error(requestId, playerUuid, message != null ? message : "Unknown error");
+            case UNKNOWN -> new MatchmakerMessage.Unknown(requestId, type);
+        };
+    }
+}
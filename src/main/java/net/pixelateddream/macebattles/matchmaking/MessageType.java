@@ -0,0 +1,50 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inbound matchmaking message types, indexed by ordinal in the dispatch table
+ */
+public enum MessageType {
+    QUEUED("queued"),
+    MATCH_FOUND("match_found"),
+    RESULT_PROCESSED("result_processed"),
+    QUEUE_CANCELLED("queue_cancelled"),
+    RATING_RESPONSE("rating_response"),
+    RATINGS_RESPONSE("ratings_response"),
+    PONG("pong"),
+    HELLO_ACK("hello_ack"),
+    ERROR("error"),
+    QUEUE_SNAPSHOT("queue_snapshot"),
+    UNKNOWN("unknown");
+
+    private static final Map<String, MessageType> BY_WIRE_NAME = new HashMap<>();
+
+    static {
+        for (MessageType type : values()) {
+            BY_WIRE_NAME.put(type.wireName, type);
+        }
+    }
+
+    private final String wireName;
+
+    MessageType(String wireName) {
+        this.wireName = wireName;
+    }
+
+    /**
+     * Gets the value of the type field on the wire
+     */
+    public String getWireName() {
+        return wireName;
+    }
+
+    /**
+     * Looks up a type by its wire name
+     * @return The type, or UNKNOWN if the name is not recognised
+     */
+    public static MessageType fromWireName(String wireName) {
+        return BY_WIRE_NAME.getOrDefault(wireName, UNKNOWN);
+    }
+}
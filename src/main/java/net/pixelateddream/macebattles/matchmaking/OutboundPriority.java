@@ -0,0 +1,37 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+/**
+ * Send order of outbound matchmaking messages, lower ordinal goes out first
+ */
+public enum OutboundPriority {
+    /**
+     * Written to the socket immediately, never buffered (hello, ping)
+     */
+    IMMEDIATE,
+    /**
+     * Results and dequeues, never dropped to make room for other messages
+     */
+    CRITICAL,
+    /**
+     * Queue joins and node capacity
+     */
+    HIGH,
+    NORMAL,
+    /**
+     * Rating lookups and queue snapshots, the first to be dropped when the buffer is full
+     */
+    LOW;
+
+    /**
+     * Gets the priority for an outbound message type
+     */
+    public static OutboundPriority forType(String type) {
+        return switch (type) {
+            case "hello", "ping" -> IMMEDIATE;
+            case "match_result", "match_result_batch", "cancel_queue", "match_rejected" -> CRITICAL;
+            case "queue", "queue_bulk", "register_node", "node_heartbeat" -> HIGH;
+            case "get_rating", "get_ratings", "get_queue_snapshot" -> LOW;
+            default -> NORMAL;
+        };
+    }
+}
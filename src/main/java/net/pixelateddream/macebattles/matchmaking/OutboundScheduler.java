@@ -0,0 +1,225 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Buffers outbound matchmaking messages by priority and coalesces them into batch frames once per tick
+ * Batch frames are only built when the server said it understands them (hello_ack batching), otherwise
+ * every message goes out as its own frame.
+ *
+ * Overflow policy: when the buffer is full, the oldest message of the lowest non-empty lane below the
+ * new message's priority is dropped to make room. If there is none (everything buffered is at least as
+ * important), the new message is rejected. CRITICAL messages are never dropped to make room.
+ * Not thread safe, only use from the main server thread.
+ */
+public class OutboundScheduler {
+    private final ArrayDeque<JsonObject>[] lanes;
+    private final int capacity;
+    private final int maxBatchSize;
+    private final int maxMessagesPerTick;
+    private final Consumer<JsonObject> onDropped; // Told about every message evicted from the buffer
+    private int size = 0;
+
+    // Counters
+    private long enqueued = 0;
+    private long dropped = 0;
+    private long rejected = 0;
+    private long framesBuilt = 0;
+    private long batchedMessages = 0; // Messages that went out inside a batch frame
+    private long congestedTicks = 0;
+    private int maxDepth = 0;
+
+    /**
+     * @param capacity Maximum buffered messages across all lanes
+     * @param maxBatchSize Maximum messages merged into one batch frame
+     * @param maxMessagesPerTick Maximum messages released per tick, the rest wait for the next one
+     * @param onDropped Called with each message evicted by the overflow policy
+     */
+    @SuppressWarnings("unchecked")
+    public OutboundScheduler(int capacity, int maxBatchSize, int maxMessagesPerTick, Consumer<JsonObject> onDropped) {
+        this.lanes = new ArrayDeque[OutboundPriority.values().length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+        this.capacity = Math.max(1, capacity);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxMessagesPerTick = Math.max(1, maxMessagesPerTick);
+        this.onDropped = onDropped;
+    }
+
+    /**
+     * Buffers a message until the next flush
+     * @return false if the buffer is full of messages at least as important and the message was rejected
+     */
+    public boolean enqueue(JsonObject message, OutboundPriority priority) {
+        if (size >= capacity && !evictBelow(priority)) {
+            rejected++;
+            return false;
+        }
+
+        lanes[priority.ordinal()].addLast(message);
+        size++;
+        enqueued++;
+        maxDepth = Math.max(maxDepth, size);
+        return true;
+    }
+
+    /**
+     * Drops the oldest message from the lowest lane below the given priority
+     * @return true if a message was dropped
+     */
+    private boolean evictBelow(OutboundPriority priority) {
+        for (int i = lanes.length - 1; i > priority.ordinal() && i > OutboundPriority.CRITICAL.ordinal(); i--) {
+            JsonObject evicted = lanes[i].pollFirst();
+            if (evicted != null) {
+                size--;
+                dropped++;
+                onDropped.accept(evicted);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes a player's unsent queue joins out of the buffer
+     * A cancel_queue is more urgent than a queue join and would overtake it, leaving the player queued on the
+     * matchmaker. The player is also taken out of buffered queue_bulk messages, a bulk left empty is removed.
+     * @return The messages removed from the buffer, whose requests will never be answered
+     */
+    public List<JsonObject> withdrawQueue(String playerUuid) {
+        List<JsonObject> withdrawn = new ArrayList<>();
+        for (ArrayDeque<JsonObject> lane : lanes) {
+            Iterator<JsonObject> iterator = lane.iterator();
+            while (iterator.hasNext()) {
+                JsonObject message = iterator.next();
+                String type = message.has("type") ? message.get("type").getAsString() : "";
+                boolean remove = false;
+                if (type.equals("queue")) {
+                    remove = message.has("player_uuid") && playerUuid.equals(message.get("player_uuid").getAsString());
+                } else if (type.equals("queue_bulk") && message.has("players")) {
+                    JsonArray players = message.getAsJsonArray("players");
+                    for (int i = players.size() - 1; i >= 0; i--) {
+                        JsonObject entry = players.get(i).getAsJsonObject();
+                        if (entry.has("player_uuid") && playerUuid.equals(entry.get("player_uuid").getAsString())) {
+                            players.remove(i);
+                        }
+                    }
+                    remove = players.isEmpty();
+                }
+                if (remove) {
+                    iterator.remove();
+                    size--;
+                    withdrawn.add(message);
+                }
+            }
+        }
+        return withdrawn;
+    }
+
+    /**
+     * Takes the messages to send this tick, highest priority first, merged into frames
+     * @param congested True if the socket still has unsent data, only CRITICAL messages are released then
+     * @param batching True if the server accepts batch frames
+     * @return Frames to write, a lone message is sent as is, several become one batch frame
+     */
+    public List<JsonObject> drainFrames(boolean congested, boolean batching) {
+        if (size == 0) {
+            return List.of();
+        }
+        if (congested) {
+            congestedTicks++;
+        }
+
+        int batchSize = batching ? maxBatchSize : 1;
+        List<JsonObject> frames = new ArrayList<>();
+        List<JsonObject> pending = new ArrayList<>(Math.min(size, batchSize));
+        int budget = maxMessagesPerTick;
+        int lastLane = congested ? OutboundPriority.CRITICAL.ordinal() : lanes.length - 1;
+
+        for (int i = 0; i <= lastLane && budget > 0; i++) {
+            ArrayDeque<JsonObject> lane = lanes[i];
+            while (budget > 0 && !lane.isEmpty()) {
+                pending.add(lane.pollFirst());
+                size--;
+                budget--;
+                if (pending.size() == batchSize) {
+                    frames.add(toFrame(pending));
+                    pending = new ArrayList<>(Math.min(size, batchSize));
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            frames.add(toFrame(pending));
+        }
+        return frames;
+    }
+
+    private JsonObject toFrame(List<JsonObject> messages) {
+        framesBuilt++;
+        if (messages.size() == 1) {
+            return messages.getFirst();
+        }
+
+        JsonArray array = new JsonArray(messages.size());
+        messages.forEach(array::add);
+        JsonObject batch = new JsonObject();
+        batch.addProperty("type", "batch");
+        batch.add("messages", array);
+        batchedMessages += messages.size();
+        return batch;
+    }
+
+    /**
+     * Empties the buffer (used when the connection is lost)
+     * @return The messages that were buffered, highest priority first
+     */
+    public List<JsonObject> clear() {
+        List<JsonObject> cleared = new ArrayList<>(size);
+        for (ArrayDeque<JsonObject> lane : lanes) {
+            cleared.addAll(lane);
+            lane.clear();
+        }
+        size = 0;
+        return cleared;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getFramesBuilt() {
+        return framesBuilt;
+    }
+
+    public long getBatchedMessages() {
+        return batchedMessages;
+    }
+
+    public long getCongestedTicks() {
+        return congestedTicks;
+    }
+}
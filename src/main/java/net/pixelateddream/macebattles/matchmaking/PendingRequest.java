@@ -0,0 +1,16 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An outbound matchmaking request that is waiting for the server's reply
+ * @param requestId The ID sent with the request and echoed back by the server
+ * @param type The message type of the request (queue, cancel_queue, get_rating...)
+ * @param playerUUID The player the request was made for, or null if it is not player specific
+ * @param deadline Time in milliseconds after which the request is considered timed out
+ * @param future Completed with the reply, or exceptionally on error/timeout
+ */
+public record PendingRequest(String requestId, String type, UUID playerUUID, long deadline,
+                             CompletableFuture<MatchmakerMessage> future) {
+}
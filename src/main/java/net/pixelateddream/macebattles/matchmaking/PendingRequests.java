@@ -0,0 +1,120 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Correlates outbound matchmaking requests with the server's replies by request ID,
+ * so many requests can be in flight at once without replies being routed to the wrong player
+ */
+public class PendingRequests {
+    private final Map<String, PendingRequest> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final String sessionPrefix;
+    private final long timeoutMillis;
+
+    public PendingRequests(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        // Prefix IDs per plugin session so replies to a previous run can never match a new request
+        this.sessionPrefix = Long.toString(System.currentTimeMillis(), 36) + "-";
+    }
+
+    /**
+     * Creates a new request ID without tracking a reply for it
+     */
+    public String nextRequestId() {
+        return sessionPrefix + nextId.incrementAndGet();
+    }
+
+    /**
+     * Registers a request that expects a reply
+     * @param type The message type being sent
+     * @param playerUUID The player the request is for (nullable)
+     * @return The pending request, holding the ID to send and the future to complete
+     */
+    public PendingRequest register(String type, UUID playerUUID) {
+        PendingRequest request = new PendingRequest(nextRequestId(), type, playerUUID,
+                System.currentTimeMillis() + timeoutMillis, new CompletableFuture<>());
+        pending.put(request.requestId(), request);
+        return request;
+    }
+
+    /**
+     * Removes and returns the request matching a reply
+     * @param requestId The request ID from the reply (nullable)
+     * @return The pending request, or null if it is unknown, already answered or timed out
+     */
+    public PendingRequest remove(String requestId) {
+        if (requestId == null) {
+            return null;
+        }
+        return pending.remove(requestId);
+    }
+
+    /**
+     * Times out every request whose deadline has passed
+     * @return The requests that were timed out
+     */
+    public List<PendingRequest> expire(long now) {
+        List<PendingRequest> expired = new ArrayList<>();
+        Iterator<PendingRequest> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            PendingRequest request = iterator.next();
+            if (request.deadline() <= now) {
+                iterator.remove();
+                expired.add(request);
+                request.future().completeExceptionally(new TimeoutException(
+                        "No reply to " + request.type() + " request " + request.requestId() + " within " + timeoutMillis + "ms"));
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Fails every pending request (used when the connection is lost)
+     */
+    public void failAll(Throwable cause) {
+        Iterator<PendingRequest> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            PendingRequest request = iterator.next();
+            iterator.remove();
+            request.future().completeExceptionally(cause);
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Convenience for completing a request with a server reply
+     */
+    public static void complete(PendingRequest request, MatchmakerMessage reply) {
+        if (request != null) {
+            request.future().complete(reply);
+        }
+    }
+
+    /**
+     * Convenience for failing a request because the server reported an error
+     */
+    public static void fail(PendingRequest request, String errorMessage) {
+        if (request != null) {
+            request.future().completeExceptionally(new MatchmakingException(errorMessage));
+        }
+    }
+
+    /**
+     * Returns an already failed future, for requests that could not be sent at all
+     */
+    public static <T> CompletableFuture<T> failed(Throwable cause) {
+        return CompletableFuture.failedFuture(cause);
+    }
+}
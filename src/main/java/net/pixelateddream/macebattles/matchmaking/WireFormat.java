@@ -0,0 +1,32 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+/**
+ * Frame encodings for the matchmaker link, picked by the server in its hello_ack
+ */
+public enum WireFormat {
+    JSON("json"),
+    BINARY_V1("binary-v1");
+
+    private final String name;
+
+    WireFormat(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Looks up a format by name
+     * @return The format, or JSON if the name is not recognised
+     */
+    public static WireFormat fromName(String name) {
+        for (WireFormat format : values()) {
+            if (format.name.equals(name)) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+}
@@ -1,11 +1,33 @@
 package net.pixelateddream.macebattles.misc;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import net.pixelateddream.macebattles.Macebattles;
 import net.pixelateddream.macebattles.match.ActiveMatch;
 import net.pixelateddream.macebattles.match.ArenaInstance;
 import net.pixelateddream.macebattles.match.KitManager;
+import net.pixelateddream.macebattles.matchmaking.BinaryMessageCodec;
+import net.pixelateddream.macebattles.matchmaking.ConnectionMetrics;
+import net.pixelateddream.macebattles.matchmaking.InboundMessage;
+import net.pixelateddream.macebattles.matchmaking.InboundMessageQueue;
+import net.pixelateddream.macebattles.matchmaking.JavaWebSocketTransport;
+import net.pixelateddream.macebattles.matchmaking.JdkWebSocketTransport;
+import net.pixelateddream.macebattles.matchmaking.LocalMatchmaker;
+import net.pixelateddream.macebattles.matchmaking.MatchResultOutbox;
+import net.pixelateddream.macebattles.matchmaking.MatchmakerMessage;
+import net.pixelateddream.macebattles.matchmaking.MatchmakerMessageAdapter;
+import net.pixelateddream.macebattles.matchmaking.MatchmakerTransport;
+import net.pixelateddream.macebattles.matchmaking.MessageDispatcher;
+import net.pixelateddream.macebattles.matchmaking.MessageType;
+import net.pixelateddream.macebattles.matchmaking.OutboundPriority;
+import net.pixelateddream.macebattles.matchmaking.OutboundScheduler;
+import net.pixelateddream.macebattles.matchmaking.PendingRequest;
+import net.pixelateddream.macebattles.matchmaking.PendingRequests;
+import net.pixelateddream.macebattles.matchmaking.WireFormat;
+import net.pixelateddream.macebattles.player.RatingCache;
+import net.pixelateddream.macebattles.util.TickMonitor;
+import net.pixelateddream.macebattles.util.TimingWheel;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -13,14 +35,15 @@ import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.java_websocket.client.WebSocketClient;
-import org.java_websocket.handshake.ServerHandshake;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class MatchmakingListener {
+public class MatchmakingListener implements RatingCache.RatingSource {
 
     public enum QueueType {
         CASUAL,
@@ -28,28 +51,132 @@ public class MatchmakingListener {
     }
 
     private final Macebattles plugin;
-    private WebSocketClient webSocketClient;
+    private MatchmakerTransport transport;
+    private final MatchmakerTransport.Factory transportFactory; // Overrides the configured transport (null = config)
     private final Gson gson;
     private final Map<String, ActiveMatch> activeMatches;
-    private UUID lastQueuedPlayerUUID; // Track last player who queued to associate rating response
+    private final Map<UUID, ActiveMatch> matchesByPlayer = new HashMap<>(); // Player UUID -> active match index
+    private final PendingRequests pendingRequests; // Requests waiting for a reply, keyed by request ID
     private final Set<UUID> queuedPlayers = new HashSet<>(); // Track players currently in queue
     private final Map<UUID, Long> queueTimestamps = new HashMap<>(); // Track when players queued
+    private final Map<UUID, QueueType> queueTypes = new HashMap<>(); // Track which queue players joined (for resume)
+    private final Set<UUID> cancelOnReconnect = new HashSet<>(); // Left the queue while disconnected, cancelled once back
+    private final Map<UUID, TimingWheel.Timeout> queueTimeouts = new HashMap<>(); // Pending queue timeout per player
     private static final long QUEUE_TIMEOUT = 300000; // 5 minutes in milliseconds
     private final Map<String, Integer> roundTimers = new HashMap<>(); // Track round timer task IDs
     private final String serverUri; // Store URI for reconnection attempts
     private int reconnectTaskId = -1; // Track reconnection task
+    private int reconnectAttempts = 0; // Consecutive failed attempts, drives the backoff
+    private final long reconnectInitialDelayMillis; // First retry delay
+    private final long reconnectMaxDelayMillis; // Backoff cap
+    private final long queueResumeGraceTicks; // How long queue state survives a disconnect
+    private int queueGraceTaskId = -1; // Track queue grace window expiry
+    private volatile boolean shuttingDown = false; // Set by disconnect() so closing doesn't trigger a reconnect
+    private int requestTimeoutTaskId = -1; // Track pending request timeout sweep
+    private final InboundMessageQueue inboundQueue; // Parsed frames waiting for the main thread
+    private final MatchmakerMessageAdapter messageAdapter = new MatchmakerMessageAdapter(); // Streaming frame decoder (stateless, used on the socket thread)
+    private final MessageDispatcher dispatcher; // Message type -> handler table
+    private final BinaryMessageCodec binaryCodec = new BinaryMessageCodec(); // binary-v1 frames (stateless)
+    private final boolean binaryEnabled; // Offer binary-v1 in the hello
+    private final boolean compressionEnabled; // Offer permessage-deflate in the handshake
+    private volatile WireFormat wireFormat = WireFormat.JSON; // Outbound format, set by hello_ack, JSON until then
+    private boolean batchingAccepted = false; // Server accepts batch frames, set by hello_ack, plain frames until then
+    private final OutboundScheduler outbound; // Outbound messages buffered by priority, flushed once per tick
+    private int outboundFlushTaskId = -1; // Track per-tick outbound flush task
+    private final int inboundMaxPerTick; // Max messages handled per tick
+    private final long inboundMaxDrainNanos; // Max time spent handling messages per tick
+    private int inboundDrainTaskId = -1; // Track per-tick inbound drain task
+    private final MatchResultOutbox resultOutbox; // Ranked results not yet confirmed by the server
+    private final int outboxReplayBatchSize; // Results per frame when replaying the outbox
+    private final LocalMatchmaker localMatchmaker; // Fallback matchmaker while the server is down (null if disabled)
+    private final Set<String> localMatchIds = new HashSet<>(); // Matches paired by the local matchmaker
+    private int localMatchmakerTaskId = -1; // Track local matchmaker pairing task
+    private final String nodeId; // This backend's ID, used by the matchmaker to route matches
+    private final int maxConcurrentMatches; // Arena slots this node offers
+    private final double maxMspt; // Above this tick time the node stops accepting new matches
+    private final double maxTickInterval; // Same limit for servers that don't report tick time (Spigot), on the tick interval
+    private final long heartbeatIntervalTicks; // How often capacity is advertised
+    private int heartbeatTaskId = -1; // Track capacity heartbeat task
+    private final ConnectionMetrics metrics = new ConnectionMetrics(); // Link health (RTT, reconnects, frame rates)
+    private final int pingIntervalSeconds; // Seconds between application-level pings
+    private int secondsSincePing = 0;
+    private int metricsTaskId = -1; // Track ping and rate sampling task
+    private final long reconcileIntervalTicks; // How often the queue mirror is checked against the matchmaker (0 = never)
+    private int reconcileTaskId = -1; // Track queue reconciliation task
+    private long queueSnapshotRequestedAt = 0; // When the outstanding queue snapshot was requested (0 = none in flight)
 
     public MatchmakingListener(Macebattles plugin, String serverUri) {
+        this(plugin, serverUri, null);
+    }
+
+    /**
+     * @param transportFactory Creates the transport instead of matchmaking.transport, null to use the config
+     */
+    public MatchmakingListener(Macebattles plugin, String serverUri, MatchmakerTransport.Factory transportFactory) {
         this.plugin = plugin;
+        this.transportFactory = transportFactory;
         this.gson = new Gson();
         this.activeMatches = new HashMap<>();
         this.serverUri = serverUri;
+        this.dispatcher = createDispatcher();
+        this.pendingRequests = new PendingRequests(plugin.getConfig().getLong("matchmaking.request-timeout-seconds", 10) * 1000L);
+        this.inboundMaxPerTick = Math.max(1, plugin.getConfig().getInt("matchmaking.inbound.max-messages-per-tick", 50));
+        this.inboundMaxDrainNanos = Math.max(1L, plugin.getConfig().getLong("matchmaking.inbound.max-drain-millis", 5)) * 1_000_000L;
+        this.inboundQueue = new InboundMessageQueue(plugin.getConfig().getInt("matchmaking.inbound.high-water", 1000));
+        this.resultOutbox = new MatchResultOutbox(plugin.getDataFolder(), plugin.getLogger());
+        this.outboxReplayBatchSize = Math.max(1, plugin.getConfig().getInt("matchmaking.outbox.replay-batch-size", 50));
+        this.reconnectInitialDelayMillis = Math.max(50L, plugin.getConfig().getLong("matchmaking.reconnect.initial-delay-millis", 1000));
+        this.reconnectMaxDelayMillis = Math.max(reconnectInitialDelayMillis, plugin.getConfig().getLong("matchmaking.reconnect.max-delay-millis", 60000));
+        this.queueResumeGraceTicks = Math.max(0L, plugin.getConfig().getLong("matchmaking.reconnect.queue-grace-seconds", 30)) * 20L;
+        String configuredNodeId = plugin.getConfig().getString("matchmaking.node.server-id", "");
+        this.nodeId = configuredNodeId == null || configuredNodeId.isBlank() ? "node-" + Bukkit.getPort() : configuredNodeId;
+        this.maxConcurrentMatches = Math.max(1, plugin.getConfig().getInt("matchmaking.node.max-concurrent-matches", 20));
+        this.maxMspt = plugin.getConfig().getDouble("matchmaking.node.max-mspt", 40.0);
+        this.maxTickInterval = plugin.getConfig().getDouble("matchmaking.node.max-tick-interval-millis", 60.0);
+        this.heartbeatIntervalTicks = Math.max(1L, plugin.getConfig().getLong("matchmaking.node.heartbeat-seconds", 5)) * 20L;
+        this.pingIntervalSeconds = Math.max(1, plugin.getConfig().getInt("matchmaking.metrics.ping-interval-seconds", 5));
+        this.reconcileIntervalTicks = Math.max(0L, plugin.getConfig().getLong("matchmaking.reconcile.interval-seconds", 30)) * 20L;
+        this.binaryEnabled = plugin.getConfig().getBoolean("matchmaking.wire.binary", true);
+        this.compressionEnabled = plugin.getConfig().getBoolean("matchmaking.wire.compression", true);
+        this.outbound = new OutboundScheduler(
+                plugin.getConfig().getInt("matchmaking.outbound.max-buffered", 1000),
+                plugin.getConfig().getInt("matchmaking.outbound.max-batch-size", 50),
+                plugin.getConfig().getInt("matchmaking.outbound.max-messages-per-tick", 500),
+                this::handleDroppedOutbound);
+
+        // Local fallback matchmaker, used only while the remote server is unreachable
+        if (plugin.getConfig().getBoolean("matchmaking.local-fallback.enabled", true)) {
+            this.localMatchmaker = new LocalMatchmaker(this::handleLocalMatchFound,
+                    plugin.getConfig().getInt("matchmaking.local-fallback.bucket-width", 50),
+                    plugin.getConfig().getInt("matchmaking.local-fallback.initial-window", 100),
+                    plugin.getConfig().getInt("matchmaking.local-fallback.widen-per-second", 10),
+                    plugin.getConfig().getInt("matchmaking.local-fallback.max-window", 600));
+            localMatchmakerTaskId = Bukkit.getScheduler().runTaskTimer(plugin,
+                    () -> localMatchmaker.tick(System.currentTimeMillis()), 20L, 20L).getTaskId();
+        } else {
+            this.localMatchmaker = null;
+        }
+
+        // Drain parsed messages once per tick on the main thread
+        startInboundDrainTask();
+
+        // Send buffered outbound messages once per tick, merged into batch frames
+        startOutboundFlushTask();
 
-        // Initial connection attempt
+        // Initial connection attempt (failures schedule their own retry with backoff)
         connectToServer();
 
-        // Start automatic reconnection task (runs every minute)
-        startReconnectionTask();
+        // Time out requests the server never answered (checks every second)
+        startRequestTimeoutTask();
+
+        // Advertise this node's capacity so the matchmaker can route matches here
+        startHeartbeatTask();
+
+        // Probe round-trip latency and sample frame rates
+        startMetricsTask();
+
+        // Repair drift between our queue mirror and the matchmaker's queue
+        startReconcileTask();
     }
 
     /**
@@ -57,68 +184,167 @@ public class MatchmakingListener {
      */
     private void connectToServer() {
         try {
-            webSocketClient = new WebSocketClient(new URI(serverUri)) {
-                @Override
-                public void onOpen(ServerHandshake handshakedata) {
-                    plugin.getLogger().info("✓ Connected to matchmaking server at " + serverUri);
-                }
-
-                @Override
-                public void onMessage(String message) {
-                    plugin.getLogger().info("Received message: " + message);
-
-                    // Process on main thread for thread safety
-                    plugin.getServer().getScheduler().runTask(plugin, () -> handleMatchmakingMessage(message));
-                }
-
-                @Override
-                public void onClose(int code, String reason, boolean remote) {
-                    String source = remote ? "server" : "client";
-                    plugin.getLogger().warning("✗ Disconnected from matchmaking server (" + source + "): " + reason + " (code: " + code + ")");
-
-                    // Clear all queues on disconnect
-                    clearAllQueues();
-
-                    // Notify all online players who were queued
-                    for (Player player : Bukkit.getOnlinePlayers()) {
-                        player.sendMessage("§c§lMatchmaking Server Disconnected");
-                        player.sendMessage("§cYou have been removed from any active queues.");
-                        player.sendMessage("§7Please wait for reconnection or try again later.");
-                    }
-                }
-
-                @Override
-                public void onError(Exception ex) {
-                    plugin.getLogger().severe("✗ WebSocket error: " + ex.getMessage());
-                    plugin.getLogger().severe("  This may affect matchmaking functionality.");
-                }
-            };
+            // The transport is created once and reused for every reconnect
+            if (transport == null) {
+                transport = createTransport(new URI(serverUri));
+            }
 
             plugin.getLogger().info("Connecting to matchmaking server at " + serverUri + "...");
-            webSocketClient.connect();
+            transport.connect();
 
         } catch (URISyntaxException e) {
             plugin.getLogger().severe("✗ Invalid WebSocket URI: " + serverUri);
             plugin.getLogger().severe("  Matchmaking will not be available!");
         } catch (Exception e) {
             plugin.getLogger().warning("✗ Failed to connect to matchmaking server: " + e.getMessage());
-            plugin.getLogger().warning("  Will retry in 60 seconds...");
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * Creates the transport picked in config (matchmaking.transport), unless a factory was passed in
+     */
+    private MatchmakerTransport createTransport(URI uri) {
+        if (transportFactory != null) {
+            MatchmakerTransport created = transportFactory.create(uri, transportListener);
+            plugin.getLogger().info("Matchmaking transport: " + created.getName());
+            return created;
         }
+
+        String name = plugin.getConfig().getString("matchmaking.transport", "java-websocket");
+        MatchmakerTransport created = "jdk".equalsIgnoreCase(name)
+                ? new JdkWebSocketTransport(uri, transportListener)
+                : new JavaWebSocketTransport(uri, compressionEnabled, transportListener);
+        plugin.getLogger().info("Matchmaking transport: " + created.getName());
+        return created;
     }
 
     /**
-     * Starts the automatic reconnection task
-     * Checks connection every minute and attempts reconnection if disconnected
+     * Connection events from the transport, called on the transport's own threads
      */
-    private void startReconnectionTask() {
-        reconnectTaskId = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+    private final MatchmakerTransport.Listener transportListener = new MatchmakerTransport.Listener() {
+        @Override
+        public void onOpen() {
+            wireFormat = WireFormat.JSON; // Every connection starts in JSON until hello_ack says otherwise
+            plugin.getLogger().info("✓ Connected to matchmaking server at " + serverUri
+                    + (isCompressionActive() ? " (permessage-deflate)" : ""));
+
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                batchingAccepted = false;
+                reconnectAttempts = 0;
+                metrics.connected();
+                secondsSincePing = pingIntervalSeconds; // Ping right away for a fresh RTT
+
+                // Offer the compact wire format, the server answers with hello_ack
+                sendHello();
+
+                // Register this node before anything is queued on it
+                registerNode();
+
+                // Put players who kept their queue session back in the server's queue
+                resumeQueueSession();
+
+                // Resend any ranked results the server has not confirmed yet
+                replayOutbox();
+
+                // Warm the rating cache for everyone online with one bulk request
+                if (plugin.getRatingCache() != null) {
+                    List<UUID> online = new ArrayList<>();
+                    Bukkit.getOnlinePlayers().forEach(player -> online.add(player.getUniqueId()));
+                    plugin.getRatingCache().prefetchAll(online);
+                }
+            });
+        }
+
+        @Override
+        public void onText(String message) {
+            long receivedNanos = System.nanoTime();
+            metrics.frameIn(message.length());
+            plugin.getLogger().fine("Received message: " + message);
+
+            // Parse here on the socket thread, the main thread only handles already decoded messages
+            try {
+                inboundQueue.offer(new InboundMessage(messageAdapter.decode(message), receivedNanos));
+            } catch (Exception e) {
+                plugin.getLogger().severe("Error parsing matchmaking message: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void onBinary(ByteBuffer bytes) {
+            long receivedNanos = System.nanoTime();
+            metrics.frameIn(bytes.remaining());
+
+            // Binary frames (binary-v1) decode straight into typed messages too
+            try {
+                inboundQueue.offer(new InboundMessage(binaryCodec.decode(bytes), receivedNanos));
+            } catch (Exception e) {
+                plugin.getLogger().severe("Error parsing binary matchmaking message: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean canAccept() {
+            return inboundQueue.hasRoom();
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+            String source = remote ? "server" : "client";
+            plugin.getLogger().warning("✗ Disconnected from matchmaking server (" + source + "): " + reason + " (code: " + code + ")");
+
+            if (shuttingDown || !plugin.isEnabled()) {
+                return;
+            }
+
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                metrics.disconnected();
+
+                // Buffered messages can't be sent anymore, their requests are failed below
+                outbound.clear();
+
+                // Fail any requests still waiting for a reply
+                pendingRequests.failAll(new IllegalStateException("Matchmaking server disconnected"));
+
+                // Keep queue state for a grace window instead of dumping everyone
+                startQueueGraceWindow();
+
+                scheduleReconnect();
+            });
+        }
+
+        @Override
+        public void onError(Exception ex) {
+            plugin.getLogger().severe("✗ WebSocket error: " + ex.getMessage());
+            plugin.getLogger().severe("  This may affect matchmaking functionality.");
+        }
+    };
+
+    /**
+     * Schedules the next reconnection attempt using jittered exponential backoff
+     * The first retry is fast, later ones back off up to the configured maximum
+     */
+    private void scheduleReconnect() {
+        if (shuttingDown || reconnectTaskId != -1) {
+            return;
+        }
+
+        long baseDelay = reconnectInitialDelayMillis << Math.min(reconnectAttempts, 20);
+        long cappedDelay = Math.min(reconnectMaxDelayMillis, baseDelay);
+        // "Equal jitter": keep half the delay, randomise the other half so nodes don't reconnect in lockstep
+        long delayMillis = cappedDelay / 2 + ThreadLocalRandom.current().nextLong(cappedDelay / 2 + 1);
+        long delayTicks = Math.max(1L, delayMillis / 50L);
+        reconnectAttempts++;
+
+        reconnectTaskId = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            reconnectTaskId = -1;
             if (!isConnected()) {
-                plugin.getLogger().info("Matchmaking server not connected. Attempting reconnection...");
+                plugin.getLogger().info("Matchmaking server not connected. Reconnection attempt #" + reconnectAttempts + "...");
                 connectToServer();
             }
-        }, 1200L, 1200L).getTaskId(); // Start after 60 seconds, repeat every 60 seconds (1200 ticks)
+        }, delayTicks).getTaskId();
 
-        plugin.getLogger().info("Automatic reconnection task started (checks every 60 seconds)");
+        plugin.getLogger().info("Will retry matchmaking connection in " + delayMillis + "ms");
     }
 
     /**
@@ -133,94 +359,602 @@ public class MatchmakingListener {
     }
 
     /**
-     * Handles incoming matchmaking messages
+     * Starts the grace window after a disconnect
+     * Queued players keep their place locally; if the connection is not back in time they are removed
+     */
+    private void startQueueGraceWindow() {
+        if (queueGraceTaskId != -1) {
+            return;
+        }
+
+        // Players already on the local matchmaker are not affected by the disconnect
+        Set<UUID> remoteQueued = new HashSet<>(queuedPlayers);
+        remoteQueued.removeIf(this::isQueuedLocally);
+        if (remoteQueued.isEmpty()) {
+            return;
+        }
+
+        for (UUID playerUUID : remoteQueued) {
+            Player player = Bukkit.getPlayer(playerUUID);
+            if (player != null) {
+                player.sendMessage("§e§lMatchmaking Server Disconnected");
+                player.sendMessage("§7Reconnecting... you will keep your place in the queue for " + (queueResumeGraceTicks / 20) + " seconds.");
+            }
+        }
+
+        queueGraceTaskId = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            queueGraceTaskId = -1;
+            if (isConnected()) {
+                return;
+            }
+
+            // Grace window ran out: move players to the local matchmaker, or drop them if it is disabled
+            for (UUID playerUUID : remoteQueued) {
+                if (!queuedPlayers.contains(playerUUID)) {
+                    continue; // Left the queue during the grace window
+                }
+
+                Player player = Bukkit.getPlayer(playerUUID);
+                if (localMatchmaker != null) {
+                    if (player != null) {
+                        player.sendMessage("§eThe matchmaking server is still offline, you have been moved to local matchmaking.");
+                    }
+                    localMatchmaker.queue(playerUUID, queueTypes.getOrDefault(playerUUID, QueueType.CASUAL),
+                            getLocalRating(playerUUID), queueTimestamps.getOrDefault(playerUUID, System.currentTimeMillis()));
+                } else {
+                    removeQueueState(playerUUID);
+                    if (player != null) {
+                        player.sendMessage("§c§lMatchmaking Server Disconnected");
+                        player.sendMessage("§cYou have been removed from the queue.");
+                        player.sendMessage("§7Please wait for reconnection or try again later.");
+                    }
+                }
+            }
+        }, queueResumeGraceTicks).getTaskId();
+    }
+
+    /**
+     * Re-sends every locally queued player to the server as one bulk re-queue after a reconnect
      */
-    private void handleMatchmakingMessage(String message) {
+    private void resumeQueueSession() {
+        if (queueGraceTaskId != -1) {
+            Bukkit.getScheduler().cancelTask(queueGraceTaskId);
+            queueGraceTaskId = -1;
+        }
+
+        // Players waiting on the local matchmaker move back to the real one
+        if (localMatchmaker != null) {
+            localMatchmaker.drainAll();
+        }
+
+        // The matchmaker may still hold players who left the queue during the outage, unless they queued again
+        cancelOnReconnect.removeAll(queuedPlayers);
+        for (UUID playerUUID : cancelOnReconnect) {
+            try {
+                JsonObject cancel = new JsonObject();
+                cancel.addProperty("type", "cancel_queue");
+                cancel.addProperty("player_uuid", playerUUID.toString());
+                sendJson(cancel);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to send deferred queue cancel for " + playerUUID + ": " + e.getMessage());
+            }
+        }
+        cancelOnReconnect.clear();
+
+        if (queuedPlayers.isEmpty()) {
+            return;
+        }
+
+        JsonObject message = buildQueueBulk(queuedPlayers);
+
         try {
-            JsonObject data = gson.fromJson(message, JsonObject.class);
-            String type = data.get("type").getAsString();
-
-            switch (type) {
-                case "queued":
-                    handleQueued(data);
-                    break;
-                case "match_found":
-                    handleMatchFound(data);
-                    break;
-                case "result_processed":
-                    handleResultProcessed(data);
-                    break;
-                case "queue_cancelled":
-                    handleQueueCancelled(data);
-                    break;
-                case "rating_response":
-                    handleRatingResponse(data);
-                    break;
-                case "error":
-                    handleError(data);
-                    break;
-                default:
-                    plugin.getLogger().warning("Unknown message type: " + type);
+            sendJson(message);
+            plugin.getLogger().info("Resumed queue session for " + queuedPlayers.size() + " player(s) after reconnect");
+            for (UUID playerUUID : queuedPlayers) {
+                Player player = Bukkit.getPlayer(playerUUID);
+                if (player != null) {
+                    player.sendMessage("§aMatchmaking server reconnected, you are still in the queue.");
+                }
             }
         } catch (Exception e) {
-            plugin.getLogger().severe("Error parsing matchmaking message: " + e.getMessage());
+            plugin.getLogger().warning("Failed to resume queue session: " + e.getMessage());
         }
     }
 
     /**
-     * Handles rating response from server
+     * Builds one queue_bulk message for the given players, keeping their mode and original queue time
      */
-    private void handleRatingResponse(JsonObject data) {
-        if (!data.has("player_uuid") || !data.has("rating")) {
-            plugin.getLogger().warning("Received incomplete rating response");
+    private JsonObject buildQueueBulk(Collection<UUID> playerUUIDs) {
+        JsonArray players = new JsonArray(playerUUIDs.size());
+        for (UUID playerUUID : playerUUIDs) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("player_uuid", playerUUID.toString());
+            entry.addProperty("mode", queueTypes.getOrDefault(playerUUID, QueueType.CASUAL).name().toLowerCase());
+            entry.addProperty("queued_at", queueTimestamps.getOrDefault(playerUUID, System.currentTimeMillis()));
+            players.add(entry);
+        }
+
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "queue_bulk");
+        message.addProperty("node_id", nodeId);
+        message.add("players", players);
+        return message;
+    }
+
+    /**
+     * Starts the task that times out requests the server never replied to
+     */
+    private void startRequestTimeoutTask() {
+        requestTimeoutTaskId = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            for (PendingRequest request : pendingRequests.expire(System.currentTimeMillis())) {
+                plugin.getLogger().warning("Matchmaking request " + request.requestId() + " (" + request.type() + ") timed out" +
+                        (request.playerUUID() != null ? " for player " + request.playerUUID() : ""));
+            }
+        }, 20L, 20L).getTaskId();
+    }
+
+    /**
+     * Starts the per-tick task that writes buffered outbound messages to the socket
+     */
+    private void startOutboundFlushTask() {
+        outboundFlushTaskId = Bukkit.getScheduler().runTaskTimer(plugin, this::flushOutbound, 1L, 1L).getTaskId();
+    }
+
+    /**
+     * Writes this tick's outbound frames, only CRITICAL messages go out while the socket is still busy
+     */
+    private void flushOutbound() {
+        if (outbound.size() == 0 || !isConnected()) {
             return;
         }
 
-        String playerUuidStr = data.get("player_uuid").getAsString();
-        int rating = data.get("rating").getAsInt();
+        boolean congested = transport.hasBufferedData();
+        List<JsonObject> frames = outbound.drainFrames(congested, batchingAccepted);
+        for (int i = 0; i < frames.size(); i++) {
+            try {
+                writeFrame(frames.get(i));
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to send " + frames.get(i).get("type").getAsString() + " frame to matchmaking server: " + e.getMessage());
+                // The rest of this tick's frames were already taken from the buffer
+                for (JsonObject unsent : frames.subList(i, frames.size())) {
+                    failUnsentFrame(unsent, e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Fails the requests carried by a frame that could not be written
+     * Ranked results stay in the outbox and are replayed on the next connect.
+     */
+    private void failUnsentFrame(JsonObject frame, String reason) {
+        List<JsonObject> messages = new ArrayList<>();
+        if (frame.has("messages") && "batch".equals(frame.get("type").getAsString())) {
+            frame.getAsJsonArray("messages").forEach(element -> messages.add(element.getAsJsonObject()));
+        } else {
+            messages.add(frame);
+        }
+        for (JsonObject message : messages) {
+            if (message.has("request_id")) {
+                PendingRequests.fail(pendingRequests.remove(message.get("request_id").getAsString()),
+                        "Failed to send: " + reason);
+            }
+        }
+    }
+
+    /**
+     * Fails the request of a message the outbound buffer dropped to make room
+     */
+    private void handleDroppedOutbound(JsonObject message) {
+        String type = message.has("type") ? message.get("type").getAsString() : "unknown";
+        plugin.getLogger().warning("Outbound buffer full, dropped " + type + " message");
+        if (message.has("request_id")) {
+            PendingRequests.fail(pendingRequests.remove(message.get("request_id").getAsString()),
+                    "Dropped from the outbound buffer");
+        }
+    }
 
+    /**
+     * Gets the outbound scheduler (for buffer depth, drop and batch counters)
+     */
+    public OutboundScheduler getOutbound() {
+        return outbound;
+    }
+
+    /**
+     * Starts the once-a-second task that sends pings, expires lost ones and samples frame rates
+     */
+    private void startMetricsTask() {
+        metricsTaskId = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            metrics.sampleRates();
+            metrics.expirePings(System.nanoTime(), pingIntervalSeconds * 2L * 1_000_000_000L);
+
+            if (++secondsSincePing < pingIntervalSeconds || !isConnected()) {
+                return;
+            }
+            secondsSincePing = 0;
+            try {
+                String requestId = pendingRequests.nextRequestId();
+                JsonObject message = new JsonObject();
+                message.addProperty("type", "ping");
+                message.addProperty("request_id", requestId);
+                message.addProperty("sent_at", System.currentTimeMillis());
+                metrics.pingSent(requestId, System.nanoTime());
+                sendJson(message);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to send ping: " + e.getMessage());
+            }
+        }, 20L, 20L).getTaskId();
+    }
+
+    /**
+     * Gets a snapshot of the matchmaker link health
+     */
+    public ConnectionMetrics.Snapshot getMetricsSnapshot() {
+        return metrics.snapshot(isConnected());
+    }
+
+    public int getPendingRequestCount() {
+        return pendingRequests.size();
+    }
+
+    /**
+     * Starts the repeating queue reconciliation
+     */
+    private void startReconcileTask() {
+        if (reconcileIntervalTicks <= 0) {
+            return;
+        }
+        reconcileTaskId = Bukkit.getScheduler().runTaskTimer(plugin, this::requestQueueSnapshot,
+                reconcileIntervalTicks, reconcileIntervalTicks).getTaskId();
+    }
+
+    /**
+     * Asks the matchmaker which players it holds in queue for this node, the reply is diffed in handleQueueSnapshot
+     */
+    private void requestQueueSnapshot() {
+        if (!isConnected() || queueSnapshotRequestedAt != 0) {
+            return;
+        }
+
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "get_queue_snapshot");
+        message.addProperty("node_id", nodeId);
+
+        queueSnapshotRequestedAt = System.currentTimeMillis();
         try {
-            UUID playerUUID = UUID.fromString(playerUuidStr);
-            plugin.setPlayerRating(playerUUID, rating);
-            plugin.getLogger().info("Cached rating for player " + playerUUID + ": " + rating);
+            // Cleared when the request is answered, fails or times out
+            sendRequest(message, null).whenComplete((reply, error) -> queueSnapshotRequestedAt = 0);
+        } catch (Exception e) {
+            queueSnapshotRequestedAt = 0;
+            plugin.getLogger().fine("Failed to request queue snapshot: " + e.getMessage());
+        }
+    }
 
-            // If player has duels menu open, refresh it
-            Player player = Bukkit.getPlayer(playerUUID);
-            if (player != null && player.getOpenInventory().getTitle().equals("§6§lDUELS MENU")) {
-                // Refresh the menu to show updated rating
-                Bukkit.getScheduler().runTask(plugin, () -> plugin.getDuelsMenu().openMainMenu(player));
+    /**
+     * Diffs the matchmaker's queue snapshot against the local queue mirror and repairs both sides
+     * Players queued after the snapshot was requested are left alone, their queue message may not have arrived yet.
+     */
+    private void handleQueueSnapshot(MatchmakerMessage.QueueSnapshot snapshot, PendingRequest request) {
+        if (request == null || queueSnapshotRequestedAt == 0) {
+            return; // Only reconcile against snapshots we asked for, an unsolicited one has no known cutoff
+        }
+        long cutoff = queueSnapshotRequestedAt;
+        Set<UUID> remote = new HashSet<>(snapshot.playerUuids());
+
+        // Queued here but lost by the matchmaker: queue them again
+        List<UUID> missing = new ArrayList<>();
+        for (UUID playerUUID : queuedPlayers) {
+            if (!remote.contains(playerUUID) && !isQueuedLocally(playerUUID)
+                    && queueTimestamps.getOrDefault(playerUUID, 0L) < cutoff) {
+                missing.add(playerUUID);
+            }
+        }
+
+        // Queued on the matchmaker but not here: cancel them there so they can't be matched
+        List<UUID> ghosts = new ArrayList<>();
+        for (UUID playerUUID : remote) {
+            if (!queuedPlayers.contains(playerUUID)) {
+                ghosts.add(playerUUID);
             }
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("Invalid UUID in rating response: " + playerUuidStr);
+        }
+
+        metrics.queueReconciled(missing.size(), ghosts.size());
+        if (missing.isEmpty() && ghosts.isEmpty()) {
+            return;
+        }
+        plugin.getLogger().info("Queue reconciliation: re-queueing " + missing.size() + " player(s), cancelling "
+                + ghosts.size() + " ghost entr" + (ghosts.size() == 1 ? "y" : "ies") + " on the matchmaker");
+
+        try {
+            if (!missing.isEmpty()) {
+                sendJson(buildQueueBulk(missing));
+            }
+            for (UUID playerUUID : ghosts) {
+                JsonObject message = new JsonObject();
+                message.addProperty("type", "cancel_queue");
+                message.addProperty("player_uuid", playerUUID.toString());
+                sendJson(message);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to repair queue drift: " + e.getMessage());
         }
     }
 
     /**
-     * Handles queued confirmation from server
+     * Starts the repeating capacity heartbeat
+     */
+    private void startHeartbeatTask() {
+        heartbeatTaskId = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            if (!isConnected()) {
+                return;
+            }
+            try {
+                JsonObject message = buildCapacityMessage("node_heartbeat");
+                sendJson(message);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to send capacity heartbeat: " + e.getMessage());
+            }
+        }, heartbeatIntervalTicks, heartbeatIntervalTicks).getTaskId();
+    }
+
+    /**
+     * Registers this node with the matchmaker, sent on every (re)connect
+     */
+    private void registerNode() {
+        try {
+            JsonObject message = buildCapacityMessage("register_node");
+            message.addProperty("max_matches", maxConcurrentMatches);
+            message.addProperty("heartbeat_seconds", heartbeatIntervalTicks / 20L);
+            sendJson(message);
+            plugin.getLogger().info("Registered with matchmaker as node " + nodeId);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to register node with matchmaker: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Builds a message carrying this node's current capacity
+     */
+    private JsonObject buildCapacityMessage(String type) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", type);
+        message.addProperty("node_id", nodeId);
+        message.addProperty("free_slots", getFreeArenaSlots());
+        message.addProperty("mspt", Math.round(plugin.getTickMonitor().getMspt() * 100.0) / 100.0);
+        message.addProperty("active_matches", activeMatches.size());
+        message.addProperty("online_players", Bukkit.getOnlinePlayers().size());
+        message.addProperty("accepting", canHostMatch());
+        return message;
+    }
+
+    /**
+     * Gets how many more matches this node can host
+     */
+    public int getFreeArenaSlots() {
+        return Math.max(0, maxConcurrentMatches - activeMatches.size());
+    }
+
+    /**
+     * Checks whether this node has a free arena slot and tick headroom for another match
+     */
+    public boolean canHostMatch() {
+        TickMonitor tickMonitor = plugin.getTickMonitor();
+        boolean headroom = tickMonitor.isMsptMeasured()
+                ? tickMonitor.getMspt() <= maxMspt
+                : tickMonitor.getTickIntervalMillis() <= maxTickInterval;
+        return getFreeArenaSlots() > 0 && headroom;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Starts the per-tick task that handles queued inbound messages within the configured budget
+     */
+    private void startInboundDrainTask() {
+        inboundDrainTaskId = Bukkit.getScheduler().runTaskTimer(plugin, this::drainInbound, 1L, 1L).getTaskId();
+    }
+
+    /**
+     * Handles queued inbound messages, then lets the transport read again if the queue is back under its high-water mark
      */
-    private void handleQueued(JsonObject data) {
-        String mode = data.has("mode") ? data.get("mode").getAsString() : "casual";
-        int rating = data.has("rating") ? data.get("rating").getAsInt() : 0;
-        if (data.has("message")) {
-            data.get("message").getAsString();
+    private void drainInbound() {
+        int handled = inboundQueue.drain(this::handleMatchmakingMessage, inboundMaxPerTick, inboundMaxDrainNanos);
+        if (handled > 0 && transport != null && inboundQueue.hasRoom()) {
+            transport.resumeReading();
         }
+    }
 
-        plugin.getLogger().info("Queue confirmation: " + mode + " (rating: " + rating + ")");
+    /**
+     * Gets the inbound message queue (for queue depth and drain time counters)
+     */
+    public InboundMessageQueue getInboundQueue() {
+        return inboundQueue;
+    }
 
-        // Cache the rating for the player who just queued
-        if (lastQueuedPlayerUUID != null && mode.equals("ranked")) {
-            plugin.setPlayerRating(lastQueuedPlayerUUID, rating);
-            plugin.getLogger().info("Cached rating " + rating + " for player " + lastQueuedPlayerUUID);
+    /**
+     * Handles incoming matchmaking messages
+     */
+    private void handleMatchmakingMessage(InboundMessage inbound) {
+        MatchmakerMessage message = inbound.message();
+        try {
+            // Pongs are timed from when the frame arrived, not when it was handled
+            if (message instanceof MatchmakerMessage.Pong) {
+                long rtt = metrics.pongReceived(message.requestId(), inbound.receivedNanos());
+                if (rtt >= 0) {
+                    plugin.getLogger().fine("Matchmaker RTT: " + (rtt / 1_000_000.0) + "ms");
+                }
+                return;
+            }
+
+            // Find the request this message answers (if the server echoed a request ID)
+            PendingRequest request = pendingRequests.remove(message.requestId());
+
+            dispatcher.dispatch(message, request);
+
+            // Errors fail their request in handleError
+            if (message.type() != MessageType.ERROR) {
+                PendingRequests.complete(request, message);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error handling matchmaking message (" + message.type() + "): " + e.getMessage());
+        }
+    }
+
+    /**
+     * Builds the table that routes each message type to its handler
+     */
+    private MessageDispatcher createDispatcher() {
+        return new MessageDispatcher()
+                .on(MessageType.QUEUED, MatchmakerMessage.Queued.class, this::handleQueued)
+                .on(MessageType.MATCH_FOUND, MatchmakerMessage.MatchFound.class, (message, request) -> handleMatchFound(message))
+                .on(MessageType.RESULT_PROCESSED, MatchmakerMessage.ResultProcessed.class, (message, request) -> handleResultProcessed(message))
+                .on(MessageType.QUEUE_CANCELLED, MatchmakerMessage.QueueCancelled.class, this::handleQueueCancelled)
+                .on(MessageType.RATING_RESPONSE, MatchmakerMessage.RatingResponse.class, (message, request) -> handleRatingResponse(message))
+                .on(MessageType.RATINGS_RESPONSE, MatchmakerMessage.RatingsResponse.class, (message, request) -> handleRatingsResponse(message))
+                .on(MessageType.HELLO_ACK, MatchmakerMessage.HelloAck.class, (message, request) -> handleHelloAck(message))
+                .on(MessageType.ERROR, MatchmakerMessage.Error.class, this::handleError)
+                .on(MessageType.QUEUE_SNAPSHOT, MatchmakerMessage.QueueSnapshot.class, this::handleQueueSnapshot)
+                .on(MessageType.UNKNOWN, MatchmakerMessage.Unknown.class,
+                        (message, request) -> plugin.getLogger().warning("Unknown message type: " + message.wireType()));
+    }
+
+    /**
+     * Gets the message dispatcher (for per-type handler latency)
+     */
+    public MessageDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Offers the wire formats this node supports, sent as JSON on every (re)connect
+     */
+    private void sendHello() {
+        try {
+            JsonArray formats = new JsonArray();
+            if (binaryEnabled) {
+                formats.add(WireFormat.BINARY_V1.getName());
+            }
+            formats.add(WireFormat.JSON.getName());
+
+            JsonObject message = new JsonObject();
+            message.addProperty("type", "hello");
+            message.addProperty("node_id", nodeId);
+            message.add("formats", formats);
+            message.addProperty("compression", isCompressionActive());
+            message.addProperty("batching", true);
+            sendJson(message);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to send hello: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Switches outbound frames to the format the server picked
+     */
+    private void handleHelloAck(MatchmakerMessage.HelloAck message) {
+        WireFormat format = WireFormat.fromName(message.format());
+        if (format == WireFormat.BINARY_V1 && !binaryEnabled) {
+            format = WireFormat.JSON;
+        }
+        wireFormat = format;
+        batchingAccepted = message.batching();
+        plugin.getLogger().info("Matchmaker wire format: " + format.getName()
+                + (isCompressionActive() ? " with permessage-deflate" : "")
+                + (batchingAccepted ? ", batch frames" : ""));
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * Gets the name of the transport in use, or "none" before the first connect
+     */
+    public String getTransportName() {
+        return transport != null ? transport.getName() : "none";
+    }
+
+    /**
+     * Checks whether permessage-deflate was negotiated on the current connection
+     */
+    public boolean isCompressionActive() {
+        return transport != null && transport.isCompressionActive();
+    }
+
+    /**
+     * Resolves which player a reply is meant for
+     * Uses the correlated request first, then the player_uuid field if the server sent one
+     */
+    private UUID resolveReplyPlayer(UUID playerUuid, PendingRequest request) {
+        if (request != null && request.playerUUID() != null) {
+            return request.playerUUID();
+        }
+        return playerUuid;
+    }
+
+    /**
+     * Handles rating response from server
+     */
+    private void handleRatingResponse(MatchmakerMessage.RatingResponse message) {
+        UUID playerUUID = message.playerUuid();
+        boolean changed = plugin.setPlayerRating(playerUUID, message.rating());
+        plugin.getLogger().fine("Cached rating for player " + playerUUID + ": " + message.rating());
+
+        // If player has duels menu open and the rating actually changed, refresh it
+        if (changed) {
+            refreshOpenDuelsMenu(playerUUID);
+        }
+    }
+
+    /**
+     * Handles a bulk rating response (answer to get_ratings)
+     */
+    private void handleRatingsResponse(MatchmakerMessage.RatingsResponse message) {
+        for (MatchmakerMessage.PlayerRating entry : message.ratings()) {
+            if (plugin.setPlayerRating(entry.playerUuid(), entry.rating())) {
+                refreshOpenDuelsMenu(entry.playerUuid());
+            }
+        }
+    }
+
+    /**
+     * Reopens the duels menu for a player who has it open, so it shows their updated rating
+     */
+    private void refreshOpenDuelsMenu(UUID playerUUID) {
+        Player player = Bukkit.getPlayer(playerUUID);
+        if (player != null && player.getOpenInventory().getTitle().equals("§6§lDUELS MENU")) {
+            Bukkit.getScheduler().runTask(plugin, () -> plugin.getDuelsMenu().openMainMenu(player));
+        }
+    }
+
+    /**
+     * Handles queued confirmation from server
+     */
+    private void handleQueued(MatchmakerMessage.Queued message, PendingRequest request) {
+        String mode = message.mode();
+        int rating = message.rating();
+        UUID playerUUID = resolveReplyPlayer(message.playerUuid(), request);
+
+        plugin.getLogger().info("Queue confirmation: " + mode + " (rating: " + rating + ") for " + playerUUID);
+
+        // Cache the rating for the player who queued
+        if (playerUUID != null && mode.equals("ranked")) {
+            plugin.setPlayerRating(playerUUID, rating);
+            plugin.getLogger().info("Cached rating " + rating + " for player " + playerUUID);
 
             // Notify player of successful queue
-            Player player = Bukkit.getPlayer(lastQueuedPlayerUUID);
+            Player player = Bukkit.getPlayer(playerUUID);
             if (player != null && player.isOnline()) {
                 player.sendMessage("§7Queue confirmed! Searching for opponents...");
                 player.sendMessage("§7Your rating: §e" + rating);
             }
-        } else if (lastQueuedPlayerUUID != null && mode.equals("casual")) {
+        } else if (playerUUID != null && mode.equals("casual")) {
             // Notify casual player
-            Player player = Bukkit.getPlayer(lastQueuedPlayerUUID);
+            Player player = Bukkit.getPlayer(playerUUID);
             if (player != null && player.isOnline()) {
                 player.sendMessage("§7Queue confirmed! Searching for opponents...");
             }
@@ -230,13 +964,14 @@ public class MatchmakingListener {
     /**
      * Handles queue cancelled confirmation from server
      */
-    private void handleQueueCancelled(JsonObject data) {
-        String messageText = data.has("message") ? data.get("message").getAsString() : "Removed from queue";
-        plugin.getLogger().info("Queue cancelled: " + messageText);
+    private void handleQueueCancelled(MatchmakerMessage.QueueCancelled message, PendingRequest request) {
+        String messageText = message.message();
+        UUID playerUUID = resolveReplyPlayer(message.playerUuid(), request);
+        plugin.getLogger().info("Queue cancelled: " + messageText + " (" + playerUUID + ")");
 
         // Notify the player if we can identify them
-        if (lastQueuedPlayerUUID != null) {
-            Player player = Bukkit.getPlayer(lastQueuedPlayerUUID);
+        if (playerUUID != null) {
+            Player player = Bukkit.getPlayer(playerUUID);
             if (player != null && player.isOnline()) {
                 player.sendMessage("§7" + messageText);
             }
@@ -246,17 +981,22 @@ public class MatchmakingListener {
     /**
      * Handles error messages from server
      */
-    private void handleError(JsonObject data) {
-        String errorMessage = data.has("message") ? data.get("message").getAsString() : "Unknown error";
-        plugin.getLogger().warning("Matchmaking server error: " + errorMessage);
+    private void handleError(MatchmakerMessage.Error message, PendingRequest request) {
+        String errorMessage = message.message();
+        plugin.getLogger().warning("Matchmaking server error: " + errorMessage +
+                (request != null ? " (request " + request.requestId() + ", " + request.type() + ")" : ""));
+        PendingRequests.fail(request, errorMessage);
+
+        // Only act on a player when the error can be tied to the request that caused it
+        UUID playerUUID = resolveReplyPlayer(message.playerUuid(), request);
+        if (playerUUID != null) {
+            // A failed queue request means the player is not queued on the server
+            if (request == null || request.type().equals("queue")) {
+                removeQueueState(playerUUID);
+            }
 
-        // Notify the player who likely triggered this error
-        if (lastQueuedPlayerUUID != null) {
-            Player player = Bukkit.getPlayer(lastQueuedPlayerUUID);
+            Player player = Bukkit.getPlayer(playerUUID);
             if (player != null && player.isOnline()) {
-                // Remove from queued set on error
-                queuedPlayers.remove(lastQueuedPlayerUUID);
-                queueTimestamps.remove(lastQueuedPlayerUUID);
 
                 // Provide user-friendly error messages based on error type
                 if (errorMessage.contains("Ranked queue is currently disabled")) {
@@ -290,24 +1030,37 @@ public class MatchmakingListener {
     /**
      * Handles result processed confirmation from server
      */
-    private void handleResultProcessed(JsonObject data) {
-        String matchUuid = data.get("match_uuid").getAsString();
+    private void handleResultProcessed(MatchmakerMessage.ResultProcessed message) {
+        String matchUuid = message.matchUuid();
 
-        if (data.has("player1_new_rating")) {
+        // The server has the result now, it no longer needs to be replayed
+        JsonObject recordedResult = resultOutbox.markDone(matchUuid);
+
+        if (message.ranked()) {
             // Ranked match - cache updated ratings
-            int player1Rating = data.get("player1_new_rating").getAsInt();
-            int player2Rating = data.get("player2_new_rating").getAsInt();
+            int player1Rating = message.player1NewRating();
+            int player2Rating = message.player2NewRating();
             plugin.getLogger().info("Ranked match " + matchUuid + " results processed. New ratings: " + player1Rating + " / " + player2Rating);
 
-            // Get the active match to find player UUIDs
+            // Find player UUIDs from the active match, or from the recorded result once the match has ended
+            UUID player1UUID = null;
+            UUID player2UUID = null;
             ActiveMatch match = activeMatches.get(matchUuid);
             if (match != null) {
-                plugin.setPlayerRating(match.getPlayer1UUID(), player1Rating);
-                plugin.setPlayerRating(match.getPlayer2UUID(), player2Rating);
+                player1UUID = match.getPlayer1UUID();
+                player2UUID = match.getPlayer2UUID();
+            } else if (recordedResult != null) {
+                player1UUID = UUID.fromString(recordedResult.get("player1_uuid").getAsString());
+                player2UUID = UUID.fromString(recordedResult.get("player2_uuid").getAsString());
+            }
+
+            if (player1UUID != null && player2UUID != null) {
+                plugin.setPlayerRating(player1UUID, player1Rating);
+                plugin.setPlayerRating(player2UUID, player2Rating);
 
                 // Notify players of their new ratings
-                Player player1 = Bukkit.getPlayer(match.getPlayer1UUID());
-                Player player2 = Bukkit.getPlayer(match.getPlayer2UUID());
+                Player player1 = Bukkit.getPlayer(player1UUID);
+                Player player2 = Bukkit.getPlayer(player2UUID);
 
                 if (player1 != null) {
                     player1.sendMessage("§7Your new rating: §e" + player1Rating);
@@ -318,34 +1071,98 @@ public class MatchmakingListener {
             }
         } else {
             // Casual match
-            String messageText = data.has("message") ? data.get("message").getAsString() : "Result recorded";
-            plugin.getLogger().info("Casual match " + matchUuid + " results processed: " + messageText);
+            plugin.getLogger().info("Casual match " + matchUuid + " results processed: " + message.message());
         }
     }
 
-    private void handleMatchFound(JsonObject data) {
-        String matchUuid = data.get("match_uuid").getAsString();
-        String player1UuidStr = data.get("player1_uuid").getAsString();
-        String player2UuidStr = data.get("player2_uuid").getAsString();
+    private void handleMatchFound(MatchmakerMessage.MatchFound message) {
+        String matchUuid = message.matchUuid();
+
+        // Matches routed to another backend are not ours to start
+        if (message.targetNode() != null && !nodeId.equals(message.targetNode())) {
+            plugin.getLogger().fine("Ignoring match " + matchUuid + " routed to node " + message.targetNode());
+            return;
+        }
 
-        QueueType queueType; // Default to casual, will be set by startMatch
         plugin.getLogger().info("Match found: " + matchUuid);
 
-        // Parse player UUIDs
-        UUID player1Uuid = UUID.fromString(player1UuidStr);
-        UUID player2Uuid = UUID.fromString(player2UuidStr);
+        UUID player1Uuid = message.player1Uuid();
+        UUID player2Uuid = message.player2Uuid();
+
+        // Hand the match back if this node is full or lagging, players stay queued for re-routing
+        if (!canHostMatch()) {
+            rejectMatch(matchUuid, getFreeArenaSlots() == 0 ? "no_free_slots" : "overloaded");
+            return;
+        }
+
+        // Use the mode the server reports, server matches default to RANKED
+        QueueType queueType = "casual".equalsIgnoreCase(message.mode()) ? QueueType.CASUAL : QueueType.RANKED;
+
+        beginFoundMatch(matchUuid, player1Uuid, player2Uuid, queueType);
+    }
+
+    /**
+     * Tells the matchmaker this node cannot host a match so it can be routed elsewhere
+     */
+    private void rejectMatch(String matchUuid, String reason) {
+        plugin.getLogger().warning("Rejecting match " + matchUuid + " (" + reason + ", "
+                + activeMatches.size() + "/" + maxConcurrentMatches + " matches, "
+                + String.format("%.1f", plugin.getTickMonitor().getMspt()) + " mspt)");
+        try {
+            JsonObject message = buildCapacityMessage("match_rejected");
+            message.addProperty("match_uuid", matchUuid);
+            message.addProperty("reason", reason);
+            sendJson(message);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to reject match " + matchUuid + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles a pairing made by the local fallback matchmaker
+     */
+    private void handleLocalMatchFound(String matchId, UUID player1Uuid, UUID player2Uuid, QueueType queueType) {
+        plugin.getLogger().info("Local match found: " + matchId + " (" + queueType + ")");
+        localMatchIds.add(matchId);
+        beginFoundMatch(matchId, player1Uuid, player2Uuid, queueType);
+        if (!activeMatches.containsKey(matchId)) {
+            localMatchIds.remove(matchId);
+        }
+    }
 
+    /**
+     * Starts a match found by the remote or local matchmaker, after ghost match and online checks
+     */
+    private void beginFoundMatch(String matchUuid, UUID player1Uuid, UUID player2Uuid, QueueType queueType) {
         // Prevent ghost matching: check if either player is already in an active match
         if (getMatchByPlayer(player1Uuid) != null || getMatchByPlayer(player2Uuid) != null) {
             plugin.getLogger().warning("[GhostMatch] Attempted to start a match for player(s) already in an active match: " + player1Uuid + ", " + player2Uuid + ". Ignoring match_found for " + matchUuid);
+            for (UUID playerUuid : List.of(player1Uuid, player2Uuid)) {
+                if (getMatchByPlayer(playerUuid) != null) {
+                    // Stale queue entry of a player who is already playing
+                    removeQueueState(playerUuid);
+                } else if (localMatchIds.contains(matchUuid) && localMatchmaker != null && queuedPlayers.contains(playerUuid)) {
+                    // The local matchmaker already took the innocent player out of its buckets, put them back
+                    // (remote pairings are repaired by the next queue snapshot)
+                    localMatchmaker.queue(playerUuid, queueTypes.getOrDefault(playerUuid, QueueType.CASUAL),
+                            getLocalRating(playerUuid), queueTimestamps.getOrDefault(playerUuid, System.currentTimeMillis()));
+                }
+            }
             return;
         }
 
+        // Record how long each player waited in queue
+        long now = System.currentTimeMillis();
+        for (UUID playerUuid : List.of(player1Uuid, player2Uuid)) {
+            Long queuedAt = queueTimestamps.get(playerUuid);
+            if (queuedAt != null) {
+                metrics.matchFound(now - queuedAt);
+            }
+        }
+
         // Remove players from queue and clean up timestamps
-        queuedPlayers.remove(player1Uuid);
-        queuedPlayers.remove(player2Uuid);
-        queueTimestamps.remove(player1Uuid);
-        queueTimestamps.remove(player2Uuid);
+        removeQueueState(player1Uuid);
+        removeQueueState(player2Uuid);
 
         // Get online players by UUID
         Player player1 = Bukkit.getPlayer(player1Uuid);
@@ -366,9 +1183,6 @@ public class MatchmakingListener {
             return;
         }
 
-        // Determine queue type based on which player initiated (we'll default to RANKED for server matches)
-        queueType = QueueType.RANKED;
-
         // Start the match (this will send the match found message ONCE)
         startMatch(matchUuid, player1, player2, queueType);
     }
@@ -376,11 +1190,12 @@ public class MatchmakingListener {
     /**
      * Requests a player's current rating from the matchmaking server
      * The rating will be cached when the server responds
+     * @return Future completed with the rating_response message
      */
-    public void requestPlayerRating(UUID playerUUID) {
+    public CompletableFuture<MatchmakerMessage> requestPlayerRating(UUID playerUUID) {
         if (!isConnected()) {
             plugin.getLogger().warning("Cannot request rating for " + playerUUID + " - WebSocket not connected");
-            return;
+            return PendingRequests.failed(new IllegalStateException("WebSocket is not connected"));
         }
 
         try {
@@ -388,25 +1203,79 @@ public class MatchmakingListener {
             message.addProperty("type", "get_rating");
             message.addProperty("player_uuid", playerUUID.toString());
 
-            sendJson(message);
-            plugin.getLogger().info("Requested rating for player: " + playerUUID);
+            CompletableFuture<MatchmakerMessage> reply = sendRequest(message, playerUUID);
+            plugin.getLogger().fine("Requested rating for player: " + playerUUID);
+            return reply;
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to request rating for player " + playerUUID + ": " + e.getMessage());
+            return PendingRequests.failed(e);
         }
     }
 
+    /**
+     * Requests ratings for several players in one get_ratings message
+     * @return Future completed with the ratings_response message
+     */
+    public CompletableFuture<MatchmakerMessage> requestPlayerRatings(Collection<UUID> playerUUIDs) {
+        if (!isConnected()) {
+            return PendingRequests.failed(new IllegalStateException("WebSocket is not connected"));
+        }
+
+        try {
+            JsonArray uuids = new JsonArray(playerUUIDs.size());
+            playerUUIDs.forEach(uuid -> uuids.add(uuid.toString()));
+
+            JsonObject message = new JsonObject();
+            message.addProperty("type", "get_ratings");
+            message.add("player_uuids", uuids);
+
+            CompletableFuture<MatchmakerMessage> reply = sendRequest(message, null);
+            plugin.getLogger().fine("Requested ratings for " + playerUUIDs.size() + " player(s)");
+            return reply;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to request ratings: " + e.getMessage());
+            return PendingRequests.failed(e);
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return isConnected();
+    }
+
+    @Override
+    public CompletableFuture<Integer> fetchRating(UUID playerUUID) {
+        return requestPlayerRating(playerUUID).thenApply(reply -> ((MatchmakerMessage.RatingResponse) reply).rating());
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, Integer>> fetchRatings(Collection<UUID> playerUUIDs) {
+        return requestPlayerRatings(playerUUIDs).thenApply(reply -> {
+            Map<UUID, Integer> ratings = new HashMap<>();
+            for (MatchmakerMessage.PlayerRating entry : ((MatchmakerMessage.RatingsResponse) reply).ratings()) {
+                ratings.put(entry.playerUuid(), entry.rating());
+            }
+            return ratings;
+        });
+    }
+
     /**
      * Queues a player for matchmaking
      * @param player The player to queue
      * @param queueType The type of queue (CASUAL or RANKED)
+     * @return Future completed with the server's queued reply, or exceptionally on error/timeout
      */
-    public void queuePlayer(Player player, QueueType queueType) {
+    public CompletableFuture<MatchmakerMessage> queuePlayer(Player player, QueueType queueType) {
+        if (!isConnected() && localMatchmaker != null) {
+            return queuePlayerLocally(player, queueType);
+        }
+
         if (!isConnected()) {
             player.sendMessage("§c§lQueue Failed!");
             player.sendMessage("§cMatchmaking server is not connected.");
             player.sendMessage("§7Please wait a moment and try again.");
             plugin.getLogger().warning("Cannot queue player " + player.getName() + " - WebSocket not connected");
-            return;
+            return PendingRequests.failed(new IllegalStateException("WebSocket is not connected"));
         }
 
         try {
@@ -414,15 +1283,14 @@ public class MatchmakingListener {
             message.addProperty("type", "queue");
             message.addProperty("player_uuid", player.getUniqueId().toString());
             message.addProperty("mode", queueType.name().toLowerCase());
-
-            // Track this player for rating response
-            lastQueuedPlayerUUID = player.getUniqueId();
+            message.addProperty("node_id", nodeId);
 
             // Add player to queued set and track timestamp
             queuedPlayers.add(player.getUniqueId());
             queueTimestamps.put(player.getUniqueId(), System.currentTimeMillis());
+            queueTypes.put(player.getUniqueId(), queueType);
 
-            sendJson(message);
+            CompletableFuture<MatchmakerMessage> reply = sendRequest(message, player.getUniqueId());
 
             String queueName = queueType == QueueType.CASUAL ? "§eCasual" : "§6Ranked";
             player.sendMessage("§aYou have been added to the " + queueName + " §amatchmaking queue!");
@@ -430,70 +1298,155 @@ public class MatchmakingListener {
 
             // Schedule timeout check
             scheduleQueueTimeout(player.getUniqueId());
+            return reply;
 
         } catch (Exception e) {
             // Remove from queue on error
-            queuedPlayers.remove(player.getUniqueId());
-            queueTimestamps.remove(player.getUniqueId());
+            removeQueueState(player.getUniqueId());
 
             player.sendMessage("§c§lQueue Failed!");
             player.sendMessage("§cAn error occurred while joining the queue.");
             player.sendMessage("§7Error: " + e.getMessage());
             plugin.getLogger().severe("Failed to queue player " + player.getName() + ": " + e.getMessage());
+            return PendingRequests.failed(e);
+        }
+    }
+
+    /**
+     * Queues a player on the local fallback matchmaker
+     * @return Future already completed with a locally generated queued message
+     */
+    private CompletableFuture<MatchmakerMessage> queuePlayerLocally(Player player, QueueType queueType) {
+        UUID playerUUID = player.getUniqueId();
+        int rating = getLocalRating(playerUUID);
+
+        queuedPlayers.add(playerUUID);
+        queueTimestamps.put(playerUUID, System.currentTimeMillis());
+        queueTypes.put(playerUUID, queueType);
+
+        String queueName = queueType == QueueType.CASUAL ? "§eCasual" : "§6Ranked";
+        player.sendMessage("§aYou have been added to the " + queueName + " §amatchmaking queue!");
+        player.sendMessage("§7The matchmaking server is offline, using local matchmaking.");
+        if (queueType == QueueType.RANKED) {
+            player.sendMessage("§7Your result will be submitted once the matchmaking server is back.");
         }
+        plugin.getLogger().info("Queued player locally: " + player.getName() + " (" + playerUUID + ") for " + queueType.name());
+
+        scheduleQueueTimeout(playerUUID);
+
+        // May pair the player immediately
+        localMatchmaker.queue(playerUUID, queueType, rating, System.currentTimeMillis());
+
+        return CompletableFuture.completedFuture(
+                new MatchmakerMessage.Queued(null, playerUUID, queueType.name().toLowerCase(), rating, true));
+    }
+
+    /**
+     * Gets the rating the local matchmaker uses for a player (cached rating, or the default 1000)
+     */
+    private int getLocalRating(UUID playerUUID) {
+        Integer rating = plugin.getPlayerRating(playerUUID);
+        return rating != null ? rating : 1000;
     }
 
     /**
-     * Schedules a timeout check for a queued player
+     * Checks if a player is waiting on the local fallback matchmaker
+     */
+    public boolean isQueuedLocally(UUID playerUUID) {
+        return localMatchmaker != null && localMatchmaker.isQueued(playerUUID);
+    }
+
+    /**
+     * Checks if players can queue right now (remote server connected or local fallback enabled)
+     */
+    public boolean isMatchmakingAvailable() {
+        return isConnected() || localMatchmaker != null;
+    }
+
+    /**
+     * Schedules a timeout for a queued player on the shared timing wheel
+     * Any earlier timeout for the player is replaced, and leaving the queue cancels it
      */
     private void scheduleQueueTimeout(UUID playerUUID) {
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            // Check if player is still in queue after timeout period
-            if (queuedPlayers.contains(playerUUID)) {
-                Long queueTime = queueTimestamps.get(playerUUID);
-                if (queueTime != null && System.currentTimeMillis() - queueTime >= QUEUE_TIMEOUT) {
-                    // Player has been in queue too long
-                    queuedPlayers.remove(playerUUID);
-                    queueTimestamps.remove(playerUUID);
-
-                    Player player = Bukkit.getPlayer(playerUUID);
-                    if (player != null && player.isOnline()) {
-                        player.sendMessage("§c§lQueue Timeout");
-                        player.sendMessage("§cYou have been removed from the queue after 5 minutes.");
-                        player.sendMessage("§7The matchmaking server may be experiencing issues.");
-                        player.sendMessage("§7Please try again later or contact an administrator.");
-                    }
+        TimingWheel.Timeout previous = queueTimeouts.put(playerUUID, plugin.getTimingWheel().schedule(() -> {
+            queueTimeouts.remove(playerUUID);
+            if (!queuedPlayers.contains(playerUUID)) {
+                return;
+            }
 
-                    plugin.getLogger().warning("Player " + playerUUID + " timed out in queue after " + QUEUE_TIMEOUT + "ms");
+            // Player has been in queue too long
+            boolean wasLocal = isQueuedLocally(playerUUID);
+            removeQueueState(playerUUID);
 
-                    // Try to send cancel to server
-                    try {
-                        JsonObject message = new JsonObject();
-                        message.addProperty("type", "cancel_queue");
-                        sendJson(message);
-                    } catch (Exception e) {
-                        plugin.getLogger().warning("Failed to send cancel message for timed out player: " + e.getMessage());
-                    }
-                }
+            Player player = Bukkit.getPlayer(playerUUID);
+            if (player != null && player.isOnline()) {
+                player.sendMessage("§c§lQueue Timeout");
+                player.sendMessage("§cYou have been removed from the queue after 5 minutes.");
+                player.sendMessage("§7The matchmaking server may be experiencing issues.");
+                player.sendMessage("§7Please try again later or contact an administrator.");
             }
-        }, QUEUE_TIMEOUT / 50); // Convert milliseconds to ticks (20 ticks per second)
+
+            plugin.getLogger().warning("Player " + playerUUID + " timed out in queue after " + QUEUE_TIMEOUT + "ms");
+
+            // Try to send cancel to server
+            if (wasLocal) {
+                return;
+            }
+            try {
+                JsonObject message = new JsonObject();
+                message.addProperty("type", "cancel_queue");
+                message.addProperty("player_uuid", playerUUID.toString());
+                sendJson(message);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to send cancel message for timed out player: " + e.getMessage());
+            }
+        }, QUEUE_TIMEOUT / 50)); // Convert milliseconds to ticks (20 ticks per second)
+
+        if (previous != null) {
+            previous.cancel();
+        }
     }
 
     /**
      * Removes a player from matchmaking queue
+     * @return Future completed with the server's queue_cancelled reply, or exceptionally on error/timeout
      */
-    public void dequeuePlayer(Player player) {
+    public CompletableFuture<MatchmakerMessage> dequeuePlayer(Player player) {
+        if (isQueuedLocally(player.getUniqueId())) {
+            removeQueueState(player.getUniqueId());
+            player.sendMessage("§cYou have been removed from the matchmaking queue!");
+            plugin.getLogger().info("Player " + player.getName() + " removed from local queue");
+
+            return CompletableFuture.completedFuture(
+                    new MatchmakerMessage.QueueCancelled(null, player.getUniqueId(), "Removed from local queue", true));
+        }
+
+        // Within the reconnect grace window there is nothing to send on, the cancel goes out once reconnected
+        if (!isConnected()) {
+            if (queuedPlayers.contains(player.getUniqueId())) {
+                cancelOnReconnect.add(player.getUniqueId());
+            }
+            removeQueueState(player.getUniqueId());
+            player.sendMessage("§cYou have been removed from the matchmaking queue!");
+            player.sendMessage("§7The matchmaking server is reconnecting and will be told once it is back.");
+            plugin.getLogger().info("Player " + player.getName() + " left the queue while disconnected, cancel deferred to reconnect");
+
+            return CompletableFuture.completedFuture(
+                    new MatchmakerMessage.QueueCancelled(null, player.getUniqueId(), "Removed from queue while disconnected", true));
+        }
+
         try {
             JsonObject message = new JsonObject();
             message.addProperty("type", "cancel_queue");
+            message.addProperty("player_uuid", player.getUniqueId().toString());
 
             // Remove player from queued set and timestamps
-            queuedPlayers.remove(player.getUniqueId());
-            queueTimestamps.remove(player.getUniqueId());
+            removeQueueState(player.getUniqueId());
 
-            sendJson(message);
+            CompletableFuture<MatchmakerMessage> reply = sendRequest(message, player.getUniqueId());
             player.sendMessage("§cYou have been removed from the matchmaking queue!");
             plugin.getLogger().info("Player " + player.getName() + " removed from queue");
+            return reply;
 
         } catch (Exception e) {
             player.sendMessage("§c§lError!");
@@ -501,8 +1454,8 @@ public class MatchmakingListener {
             plugin.getLogger().severe("Failed to dequeue player " + player.getName() + ": " + e.getMessage());
 
             // Still remove locally even if server communication fails
-            queuedPlayers.remove(player.getUniqueId());
-            queueTimestamps.remove(player.getUniqueId());
+            removeQueueState(player.getUniqueId());
+            return PendingRequests.failed(e);
         }
     }
 
@@ -531,14 +1484,18 @@ public class MatchmakingListener {
      * @param playerUUID The player's UUID
      */
     public void removePlayerFromQueue(UUID playerUUID) {
-        if (queuedPlayers.remove(playerUUID)) {
-            queueTimestamps.remove(playerUUID);
+        boolean wasLocal = isQueuedLocally(playerUUID);
+        if (removeQueueState(playerUUID)) {
             plugin.getLogger().info("Removed disconnected player from queue: " + playerUUID);
+            if (wasLocal) {
+                return;
+            }
 
             // Try to notify server
             try {
                 JsonObject message = new JsonObject();
                 message.addProperty("type", "cancel_queue");
+                message.addProperty("player_uuid", playerUUID.toString());
                 sendJson(message);
             } catch (Exception e) {
                 plugin.getLogger().warning("Failed to notify server of player disconnect from queue: " + e.getMessage());
@@ -546,6 +1503,23 @@ public class MatchmakingListener {
         }
     }
 
+    /**
+     * Forgets all local queue state for a player
+     * @return true if the player was queued
+     */
+    private boolean removeQueueState(UUID playerUUID) {
+        if (localMatchmaker != null) {
+            localMatchmaker.dequeue(playerUUID);
+        }
+        TimingWheel.Timeout timeout = queueTimeouts.remove(playerUUID);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        queueTimestamps.remove(playerUUID);
+        queueTypes.remove(playerUUID);
+        return queuedPlayers.remove(playerUUID);
+    }
+
     /**
      * Clears all queue state (used on plugin disable or server errors)
      */
@@ -553,6 +1527,12 @@ public class MatchmakingListener {
         int count = queuedPlayers.size();
         queuedPlayers.clear();
         queueTimestamps.clear();
+        queueTypes.clear();
+        queueTimeouts.values().forEach(TimingWheel.Timeout::cancel);
+        queueTimeouts.clear();
+        if (localMatchmaker != null) {
+            localMatchmaker.clear();
+        }
         if (count > 0) {
             plugin.getLogger().info("Cleared " + count + " player(s) from queue");
         }
@@ -563,7 +1543,7 @@ public class MatchmakingListener {
      */
     private void startMatch(String matchId, Player player1, Player player2, QueueType queueType) {
         // Create arena instance with automatically selected random map
-        ArenaInstance arena = plugin.getMapManager().createRandomArena();
+        ArenaInstance arena = plugin.getMapManager().createRandomArena(queueType);
 
         if (arena == null) {
             plugin.getLogger().severe("Failed to create arena for match: " + matchId);
@@ -572,12 +1552,13 @@ public class MatchmakingListener {
             return;
         }
 
-        // Get the map name from the arena ID (format: mapname_timestamp)
-        String selectedMap = arena.getId().split("_")[0];
+        String selectedMap = arena.getMapName();
 
         // Create active match with queue type
         ActiveMatch match = new ActiveMatch(matchId, player1.getUniqueId(), player2.getUniqueId(), arena, queueType);
         activeMatches.put(matchId, match);
+        matchesByPlayer.put(match.getPlayer1UUID(), match);
+        matchesByPlayer.put(match.getPlayer2UUID(), match);
 
         // Store original spawn locations
         match.setOriginalLocation(player1.getUniqueId(), player1.getLocation());
@@ -834,22 +1815,29 @@ public class MatchmakingListener {
             results.addProperty("player2_uuid", match.getPlayer2UUID().toString());
             results.addProperty("player1_rounds", player1Score);
             results.addProperty("player2_rounds", player2Score);
+            if (localMatchIds.contains(match.getMatchId())) {
+                // Paired by the local fallback matchmaker, the server has never seen this match UUID
+                results.addProperty("matched_locally", true);
+            }
+
+            // Persist before sending so the result survives a dropped connection or a restart
+            resultOutbox.record(results);
 
             try {
                 sendJson(results);
                 plugin.getLogger().info("Ranked match " + match.getMatchId() + " completed. " +
                     "Score: " + player1Score + "-" + player2Score + " - Results sent to server");
             } catch (Exception e) {
-                plugin.getLogger().severe("Failed to send match results to server: " + e.getMessage());
+                plugin.getLogger().warning("Failed to send match results to server, kept in outbox: " + e.getMessage());
 
-                // Notify players of rating update failure
+                // Let players know the rating update is delayed, not lost
                 if (player1 != null) {
-                    player1.sendMessage("§c§lWarning: Rating update may have failed!");
-                    player1.sendMessage("§7Contact an administrator if your rating doesn't update.");
+                    player1.sendMessage("§e§lRating update delayed");
+                    player1.sendMessage("§7Your result is saved and will be submitted once the matchmaking server is back.");
                 }
                 if (player2 != null) {
-                    player2.sendMessage("§c§lWarning: Rating update may have failed!");
-                    player2.sendMessage("§7Contact an administrator if your rating doesn't update.");
+                    player2.sendMessage("§e§lRating update delayed");
+                    player2.sendMessage("§7Your result is saved and will be submitted once the matchmaking server is back.");
                 }
             }
         } else {
@@ -859,6 +1847,9 @@ public class MatchmakingListener {
         // IMPORTANT: Remove match from active matches IMMEDIATELY to prevent any further round processing
         String matchId = match.getMatchId();
         activeMatches.remove(matchId);
+        localMatchIds.remove(matchId);
+        matchesByPlayer.remove(match.getPlayer1UUID(), match);
+        matchesByPlayer.remove(match.getPlayer2UUID(), match);
         cancelRoundTimer(matchId);
         plugin.getLogger().info("Match " + matchId + " removed from active matches");
 
@@ -875,7 +1866,8 @@ public class MatchmakingListener {
                     player1.teleport(spawn1);
                     plugin.getLogger().info("Teleported " + player1.getName() + " to original spawn after match.");
                 } else {
-                    player1.teleport(player1.getWorld().getSpawnLocation());
+                    // Main world spawn, the player is still in the arena world
+                    player1.teleport(Bukkit.getWorlds().getFirst().getSpawnLocation());
                     plugin.getLogger().info("Teleported " + player1.getName() + " to world spawn after match.");
                 }
                 player1.sendMessage("§aYou have been returned to spawn!");
@@ -895,7 +1887,8 @@ public class MatchmakingListener {
                     player2.teleport(spawn2);
                     plugin.getLogger().info("Teleported " + player2.getName() + " to original spawn after match.");
                 } else {
-                    player2.teleport(player2.getWorld().getSpawnLocation());
+                    // Main world spawn, the player is still in the arena world
+                    player2.teleport(Bukkit.getWorlds().getFirst().getSpawnLocation());
                     plugin.getLogger().info("Teleported " + player2.getName() + " to world spawn after match.");
                 }
                 player2.sendMessage("§aYou have been returned to spawn!");
@@ -904,21 +1897,56 @@ public class MatchmakingListener {
                 plugin.getDuelsMenu().addPendingTeleport(match.getPlayer2UUID(), match.getOriginalLocation(match.getPlayer2UUID()));
             }
 
-            // Clean up arena
-            plugin.getMapManager().removeArenaInstance(match.getArena().getId());
+            // Return the arena to its pool for the next match
+            plugin.getMapManager().releaseArena(match.getArena().getId());
         }, 5 * 20L); // 5-second delay
     }
 
     /**
-     * Gets an active match by player UUID
+     * Resends every unconfirmed ranked result, oldest first
+     * Results are grouped into batch frames so a long outage does not turn into hundreds of frames
+     * The server deduplicates by match UUID, so replaying a result it already has is harmless
      */
-    public ActiveMatch getMatchByPlayer(UUID playerUUID) {
-        for (ActiveMatch match : activeMatches.values()) {
-            if (match.getPlayer1UUID().equals(playerUUID) || match.getPlayer2UUID().equals(playerUUID)) {
-                return match;
+    private void replayOutbox() {
+        List<JsonObject> results = resultOutbox.getPendingResults();
+        if (results.isEmpty() || !isConnected()) {
+            return;
+        }
+
+        plugin.getLogger().info("Replaying " + results.size() + " unconfirmed match result(s) from outbox");
+        try {
+            for (int start = 0; start < results.size(); start += outboxReplayBatchSize) {
+                List<JsonObject> batch = results.subList(start, Math.min(start + outboxReplayBatchSize, results.size()));
+                if (batch.size() == 1) {
+                    sendJson(batch.getFirst());
+                    continue;
+                }
+
+                JsonObject message = new JsonObject();
+                message.addProperty("type", "match_result_batch");
+                JsonArray array = new JsonArray(batch.size());
+                batch.forEach(array::add);
+                message.add("results", array);
+                sendJson(message);
             }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Outbox replay interrupted, remaining results will be sent on next connect: " + e.getMessage());
         }
-        return null;
+    }
+
+    /**
+     * Gets the number of ranked results waiting for server confirmation
+     */
+    public int getPendingResultCount() {
+        return resultOutbox.size();
+    }
+
+    /**
+     * Gets an active match by player UUID
+     * Constant time lookup, this runs on every damage event
+     */
+    public ActiveMatch getMatchByPlayer(UUID playerUUID) {
+        return matchesByPlayer.get(playerUUID);
     }
 
     /**
@@ -1027,8 +2055,9 @@ public class MatchmakingListener {
      */
     public void sendData(String data) {
         try {
-            if (webSocketClient != null && webSocketClient.isOpen()) {
-                webSocketClient.send(data);
+            if (isConnected()) {
+                transport.sendText(data);
+                metrics.frameOut(data.length());
             } else {
                 plugin.getLogger().warning("Cannot send data: WebSocket not connected");
                 throw new IllegalStateException("WebSocket is not connected");
@@ -1040,12 +2069,46 @@ public class MatchmakingListener {
     }
 
     /**
-     * Sends JSON data to the matchmaking server
+     * Sends a binary frame to the matchmaking server
+     */
+    private void sendBinary(byte[] data) {
+        if (!isConnected()) {
+            plugin.getLogger().warning("Cannot send data: WebSocket not connected");
+            throw new IllegalStateException("WebSocket is not connected");
+        }
+        transport.sendBinary(data);
+        metrics.frameOut(data.length);
+    }
+
+    /**
+     * Sends JSON data to the matchmaking server, as a binary-v1 frame once the server agreed to it
+     * Every message carries a request_id; one is generated if the caller did not set it
      */
     public void sendJson(JsonObject jsonData) {
         try {
-            String jsonString = gson.toJson(jsonData);
-            sendData(jsonString);
+            if (!jsonData.has("request_id")) {
+                jsonData.addProperty("request_id", pendingRequests.nextRequestId());
+            }
+            if (!isConnected()) {
+                plugin.getLogger().warning("Cannot send data: WebSocket not connected");
+                throw new IllegalStateException("WebSocket is not connected");
+            }
+
+            String type = jsonData.has("type") ? jsonData.get("type").getAsString() : "";
+            if (type.equals("cancel_queue") && jsonData.has("player_uuid")) {
+                // The cancel goes out ahead of the queue lane, so a join the matchmaker hasn't seen must not follow it
+                for (JsonObject withdrawn : outbound.withdrawQueue(jsonData.get("player_uuid").getAsString())) {
+                    failUnsentFrame(withdrawn, "cancelled before it was sent");
+                }
+            }
+
+            // Control messages are written right away, everything else waits for the per-tick flush
+            OutboundPriority priority = OutboundPriority.forType(type);
+            if (priority == OutboundPriority.IMMEDIATE) {
+                writeFrame(jsonData);
+            } else if (!outbound.enqueue(jsonData, priority)) {
+                throw new IllegalStateException("Outbound buffer is full");
+            }
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to send JSON to matchmaking server: " + e.getMessage());
             plugin.getLogger().severe("  JSON data: " + jsonData.toString());
@@ -1053,11 +2116,41 @@ public class MatchmakingListener {
         }
     }
 
+    /**
+     * Writes one frame to the socket in the negotiated wire format
+     */
+    private void writeFrame(JsonObject frame) {
+        if (wireFormat == WireFormat.BINARY_V1) {
+            sendBinary(binaryCodec.encode(frame));
+        } else {
+            sendData(gson.toJson(frame));
+        }
+    }
+
+    /**
+     * Sends a request to the matchmaking server and tracks the reply by request ID
+     * @param message The message to send (a request_id is added to it)
+     * @param playerUUID The player the request is for, used to route the reply (nullable)
+     * @return Future completed with the reply, or exceptionally on error/timeout
+     */
+    public CompletableFuture<MatchmakerMessage> sendRequest(JsonObject message, UUID playerUUID) {
+        PendingRequest request = pendingRequests.register(message.get("type").getAsString(), playerUUID);
+        message.addProperty("request_id", request.requestId());
+        try {
+            sendJson(message);
+        } catch (Exception e) {
+            pendingRequests.remove(request.requestId());
+            request.future().completeExceptionally(e);
+            throw e;
+        }
+        return request.future();
+    }
+
     /**
      * Checks if the WebSocket is connected
      */
     public boolean isConnected() {
-        return webSocketClient != null && webSocketClient.isOpen();
+        return transport != null && transport.isOpen();
     }
 
     /**
@@ -1066,12 +2159,48 @@ public class MatchmakingListener {
     public void disconnect() {
         try {
             // Stop automatic reconnection
+            shuttingDown = true;
             stopReconnectionTask();
+            if (requestTimeoutTaskId != -1) {
+                Bukkit.getScheduler().cancelTask(requestTimeoutTaskId);
+                requestTimeoutTaskId = -1;
+            }
+            if (localMatchmakerTaskId != -1) {
+                Bukkit.getScheduler().cancelTask(localMatchmakerTaskId);
+                localMatchmakerTaskId = -1;
+            }
+            if (inboundDrainTaskId != -1) {
+                Bukkit.getScheduler().cancelTask(inboundDrainTaskId);
+                inboundDrainTaskId = -1;
+            }
+            if (heartbeatTaskId != -1) {
+                Bukkit.getScheduler().cancelTask(heartbeatTaskId);
+                heartbeatTaskId = -1;
+            }
+            if (metricsTaskId != -1) {
+                Bukkit.getScheduler().cancelTask(metricsTaskId);
+                metricsTaskId = -1;
+            }
+            if (reconcileTaskId != -1) {
+                Bukkit.getScheduler().cancelTask(reconcileTaskId);
+                reconcileTaskId = -1;
+            }
+            if (outboundFlushTaskId != -1) {
+                Bukkit.getScheduler().cancelTask(outboundFlushTaskId);
+                outboundFlushTaskId = -1;
+            }
+
+            // Best effort: get buffered messages out before closing
+            flushOutbound();
 
-            if (webSocketClient != null && webSocketClient.isOpen()) {
-                webSocketClient.close();
-                plugin.getLogger().info("Disconnected from matchmaking server");
+            if (transport != null) {
+                boolean wasOpen = transport.isOpen();
+                transport.close(); // Also releases the transport's threads
+                if (wasOpen) {
+                    plugin.getLogger().info("Disconnected from matchmaking server");
+                }
             }
+            resultOutbox.close();
         } catch (Exception e) {
             plugin.getLogger().warning("Error while disconnecting from matchmaking server: " + e.getMessage());
         }
@@ -0,0 +1,190 @@
+package net.pixelateddream.macebattles.player;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded player rating cache with a TTL and stale-while-revalidate
+ * Reads never block: a stale rating is returned straight away and refreshed in the background,
+ * duplicate lookups for the same player share one in-flight request, and players are
+ * prefetched in bulk (one request per flush) when they join
+ */
+public class RatingCache {
+
+    /**
+     * Where ratings are fetched from (the matchmaking server)
+     */
+    public interface RatingSource {
+        boolean isAvailable();
+
+        CompletableFuture<Integer> fetchRating(UUID playerUUID);
+
+        CompletableFuture<Map<UUID, Integer>> fetchRatings(Collection<UUID> playerUUIDs);
+    }
+
+    private record Entry(int rating, long fetchedAt) {
+    }
+
+    private final Map<UUID, Entry> entries;
+    private final Map<UUID, CompletableFuture<Integer>> inFlight = new HashMap<>();
+    private final Set<UUID> pendingPrefetch = new LinkedHashSet<>();
+    private final RatingSource source;
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private long hits = 0;
+    private long staleHits = 0;
+    private long misses = 0;
+
+    /**
+     * @param source Where ratings are fetched from
+     * @param maxSize Maximum number of cached players (least recently used are evicted)
+     * @param ttlMillis How long a rating is fresh
+     * @param maxStaleMillis How long a stale rating may still be served while it is refreshed
+     */
+    public RatingCache(RatingSource source, int maxSize, long ttlMillis, long maxStaleMillis) {
+        this.source = source;
+        this.ttlMillis = ttlMillis;
+        this.maxStaleMillis = Math.max(ttlMillis, maxStaleMillis);
+        int capacity = Math.max(16, maxSize);
+        this.entries = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets a player's rating without blocking
+     * Stale or missing ratings trigger a background refresh
+     * @return The cached rating, or null if nothing usable is cached
+     */
+    public Integer get(UUID playerUUID) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(playerUUID);
+
+        if (entry == null || now - entry.fetchedAt() > maxStaleMillis) {
+            misses++;
+            refresh(playerUUID);
+            return null;
+        }
+
+        if (now - entry.fetchedAt() > ttlMillis) {
+            staleHits++;
+            refresh(playerUUID);
+        } else {
+            hits++;
+        }
+        return entry.rating();
+    }
+
+    /**
+     * Stores a rating pushed by the server (queue confirmation, match results, rating responses)
+     * @return true if the rating differs from what was cached
+     */
+    public boolean put(UUID playerUUID, int rating) {
+        Entry previous = entries.put(playerUUID, new Entry(rating, System.currentTimeMillis()));
+        return previous == null || previous.rating() != rating;
+    }
+
+    /**
+     * Drops a player's cached rating
+     */
+    public void invalidate(UUID playerUUID) {
+        entries.remove(playerUUID);
+    }
+
+    /**
+     * Refreshes a rating in the background, joining any lookup already in flight for the player
+     */
+    public CompletableFuture<Integer> refresh(UUID playerUUID) {
+        CompletableFuture<Integer> existing = inFlight.get(playerUUID);
+        if (existing != null) {
+            return existing;
+        }
+        if (!source.isAvailable()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Rating source unavailable"));
+        }
+
+        CompletableFuture<Integer> lookup = source.fetchRating(playerUUID);
+        inFlight.put(playerUUID, lookup);
+        lookup.whenComplete((rating, error) -> {
+            inFlight.remove(playerUUID, lookup);
+            if (error == null && rating != null) {
+                put(playerUUID, rating);
+            }
+        });
+        return lookup;
+    }
+
+    /**
+     * Marks a player to be fetched with the next bulk request
+     */
+    public void prefetch(UUID playerUUID) {
+        pendingPrefetch.add(playerUUID);
+    }
+
+    /**
+     * Marks several players to be fetched with the next bulk request
+     */
+    public void prefetchAll(Collection<UUID> playerUUIDs) {
+        pendingPrefetch.addAll(playerUUIDs);
+    }
+
+    /**
+     * Sends one bulk request for every pending prefetch that is not fresh or already in flight
+     * Call periodically from the main thread
+     */
+    public void flushPrefetches() {
+        if (pendingPrefetch.isEmpty() || !source.isAvailable()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<UUID> toFetch = new ArrayList<>();
+        for (UUID playerUUID : pendingPrefetch) {
+            Entry entry = entries.get(playerUUID);
+            boolean fresh = entry != null && now - entry.fetchedAt() <= ttlMillis;
+            if (!fresh && !inFlight.containsKey(playerUUID)) {
+                toFetch.add(playerUUID);
+            }
+        }
+        pendingPrefetch.clear();
+        if (toFetch.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture<Map<UUID, Integer>> bulk = source.fetchRatings(toFetch);
+        for (UUID playerUUID : toFetch) {
+            // Single lookups for these players join the bulk request instead of sending their own
+            CompletableFuture<Integer> single = bulk.thenApply(ratings -> ratings.get(playerUUID));
+            inFlight.put(playerUUID, single);
+            single.whenComplete((rating, error) -> inFlight.remove(playerUUID, single));
+        }
+        bulk.whenComplete((ratings, error) -> {
+            if (error == null && ratings != null) {
+                ratings.forEach(this::put);
+            }
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -1,5 +1,6 @@
 package net.pixelateddream.macebattles.player.friend;
 
+import net.pixelateddream.macebattles.util.TimingWheel;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
@@ -8,22 +9,50 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class FriendsManager {
     private static final Map<UUID, Set<UUID>> friends = new ConcurrentHashMap<>();
-    private final Map<UUID, Set<UUID>> pendingRequests = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<UUID, TimingWheel.Timeout>> pendingRequests = new ConcurrentHashMap<>(); // Target -> requester -> expiry
+    private static final long REQUEST_EXPIRY_TICKS = 5 * 60 * 20L; // 5 minutes
+    private final TimingWheel timingWheel;
 
-    public FriendsManager() {
+    public FriendsManager(TimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
     }
 
     public void sendFriendRequest(Player from, Player to) {
         if (from == null || to == null) return;
-        pendingRequests.computeIfAbsent(to.getUniqueId(), k -> ConcurrentHashMap.newKeySet())
-                .add(from.getUniqueId());
+        UUID fromId = from.getUniqueId();
+        UUID toId = to.getUniqueId();
+
+        // Re-sending a request restarts its expiry
+        TimingWheel.Timeout expiry = timingWheel.schedule(() -> expireFriendRequest(toId, fromId), REQUEST_EXPIRY_TICKS);
+        TimingWheel.Timeout previous = pendingRequests.computeIfAbsent(toId, k -> new ConcurrentHashMap<>())
+                .put(fromId, expiry);
+        if (previous != null) previous.cancel();
+    }
+
+    private void expireFriendRequest(UUID toId, UUID fromId) {
+        Map<UUID, TimingWheel.Timeout> raw = pendingRequests.get(toId);
+        if (raw == null || raw.remove(fromId) == null) return;
+        if (raw.isEmpty()) pendingRequests.remove(toId, raw);
+
+        Player from = Bukkit.getPlayer(fromId);
+        Player to = Bukkit.getPlayer(toId);
+        if (from != null) {
+            from.sendMessage("§cFriend request to " + (to != null ? to.getName() : "player") + " expired");
+        }
+    }
+
+    private void removePendingRequest(UUID toId, UUID fromId) {
+        Map<UUID, TimingWheel.Timeout> raw = pendingRequests.get(toId);
+        if (raw == null) return;
+        TimingWheel.Timeout expiry = raw.remove(fromId);
+        if (expiry != null) expiry.cancel();
+        if (raw.isEmpty()) pendingRequests.remove(toId, raw);
     }
 
     public void acceptFriendRequest(Player accepter, Player requester) {
         if (accepter == null || requester == null) return;
         // remove pending
-        Set<UUID> raw = pendingRequests.get(accepter.getUniqueId());
-        if (raw != null) raw.remove(requester.getUniqueId());
+        removePendingRequest(accepter.getUniqueId(), requester.getUniqueId());
 
         // add to friends both ways
         friends.computeIfAbsent(accepter.getUniqueId(), k -> ConcurrentHashMap.newKeySet())
@@ -34,8 +63,7 @@ public class FriendsManager {
 
     public void denyFriendRequest(Player accepter, Player requester) {
         if (accepter == null || requester == null) return;
-        Set<UUID> raw = pendingRequests.get(accepter.getUniqueId());
-        if (raw != null) raw.remove(requester.getUniqueId());
+        removePendingRequest(accepter.getUniqueId(), requester.getUniqueId());
     }
 
     public void removeFriend(Player remover, Player target) {
@@ -60,10 +88,10 @@ public class FriendsManager {
 
     public List<Player> getPendingFriendRequests(Player player) {
         if (player == null) return Collections.emptyList();
-        Set<UUID> rawPending = pendingRequests.get(player.getUniqueId());
+        Map<UUID, TimingWheel.Timeout> rawPending = pendingRequests.get(player.getUniqueId());
         if (rawPending == null || rawPending.isEmpty()) return Collections.emptyList();
         List<Player> result = new ArrayList<>();
-        for (UUID id : rawPending) {
+        for (UUID id : rawPending.keySet()) {
             Player p = Bukkit.getPlayer(id);
             if (p != null) result.add(p);
         }
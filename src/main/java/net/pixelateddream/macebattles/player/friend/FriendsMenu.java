@@ -72,7 +72,7 @@ public class FriendsMenu {
 
         Material type = clickedItem.getType();
         MatchmakingListener listener = plugin.getMatchmakingListener();
-        boolean isConnected = listener != null && listener.isConnected();
+        boolean isConnected = listener != null && listener.isMatchmakingAvailable();
 
         // Casual queue (slot 14)
         if (slot == 14) {
@@ -0,0 +1,83 @@
+package net.pixelateddream.macebattles.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads chunks without blocking the main thread where the server allows it
+ * Uses Paper's World#getChunkAtAsync when present (looked up once by reflection, the plugin compiles
+ * against the Spigot API) and falls back to a synchronous load on Spigot.
+ */
+public final class ChunkLoader {
+    private static final Method GET_CHUNK_AT_ASYNC = findAsyncLoader();
+
+    private ChunkLoader() {
+    }
+
+    private static Method findAsyncLoader() {
+        try {
+            return World.class.getMethod("getChunkAtAsync", int.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether chunks are loaded asynchronously on this server
+     */
+    public static boolean isAsyncSupported() {
+        return GET_CHUNK_AT_ASYNC != null;
+    }
+
+    /**
+     * Loads a chunk, asynchronously if supported
+     */
+    @SuppressWarnings("unchecked")
+    public static CompletableFuture<Chunk> load(World world, int chunkX, int chunkZ) {
+        if (GET_CHUNK_AT_ASYNC != null) {
+            try {
+                return (CompletableFuture<Chunk>) GET_CHUNK_AT_ASYNC.invoke(world, chunkX, chunkZ);
+            } catch (ReflectiveOperationException e) {
+                // Fall through to a synchronous load
+            }
+        }
+        return CompletableFuture.completedFuture(world.getChunkAt(chunkX, chunkZ));
+    }
+
+    /**
+     * Loads a rectangle of chunks (inclusive bounds)
+     * @return Completed on the main thread once every chunk is loaded
+     */
+    public static CompletableFuture<Void> loadArea(Plugin plugin, World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        List<CompletableFuture<Chunk>> loads = new ArrayList<>();
+        for (int x = minChunkX; x <= maxChunkX; x++) {
+            for (int z = minChunkZ; z <= maxChunkZ; z++) {
+                loads.add(load(world, x, z));
+            }
+        }
+
+        CompletableFuture<Void> loaded = new CompletableFuture<>();
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+            Runnable complete = () -> {
+                if (error != null) {
+                    loaded.completeExceptionally(error);
+                } else {
+                    loaded.complete(null);
+                }
+            };
+            if (Bukkit.isPrimaryThread()) {
+                complete.run();
+            } else {
+                Bukkit.getScheduler().runTask(plugin, complete);
+            }
+        });
+        return loaded;
+    }
+}
@@ -0,0 +1,86 @@
+package net.pixelateddream.macebattles.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets
+ * Bucket i holds samples below 2^i microseconds, so percentiles are accurate to within a factor of two.
+ * Safe to record from any thread.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 40; // 2^39 us is over six days, anything above lands in the last bucket
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one sample
+     */
+    public void recordNanos(long nanos) {
+        recordMicros(Math.max(0, nanos) / 1_000L);
+    }
+
+    public void recordMillis(long millis) {
+        recordMicros(Math.max(0, millis) * 1_000L);
+    }
+
+    private void recordMicros(long micros) {
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the mean in milliseconds (0 when empty)
+     */
+    public double getMeanMillis() {
+        long samples = count.get();
+        return samples == 0 ? 0 : sumMicros.get() / (double) samples / 1_000.0;
+    }
+
+    public double getMaxMillis() {
+        return maxMicros.get() / 1_000.0;
+    }
+
+    /**
+     * Gets the upper bound of the bucket holding the given percentile, in milliseconds
+     * @param percentile Between 0 and 100
+     */
+    public double getPercentileMillis(double percentile) {
+        long samples = count.get();
+        if (samples == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(samples * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(1L << i, maxMicros.get()) / 1_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Clears all samples
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sumMicros.set(0);
+        maxMicros.set(0);
+    }
+}
@@ -0,0 +1,135 @@
+package net.pixelateddream.macebattles.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Set of primitive longs using open addressing, no boxing per entry
+ * Meant for packed block positions, see {@link #packBlock(int, int, int)}.
+ * Not thread safe.
+ */
+public class LongHashSet {
+    private static final long EMPTY = Long.MIN_VALUE; // Marks a free cell, never a packed block position
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] cells;
+    private int size = 0;
+    private boolean hasEmptyValue = false; // EMPTY itself can't be stored in a cell
+
+    public LongHashSet() {
+        cells = newCells(MIN_CAPACITY);
+    }
+
+    /**
+     * Packs block coordinates into one long (x and z: 26 bits, y: 12 bits)
+     */
+    public static long packBlock(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    /**
+     * @return true if the value was not in the set yet
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (hasEmptyValue) {
+                return false;
+            }
+            hasEmptyValue = true;
+            size++;
+            return true;
+        }
+
+        int index = find(cells, value);
+        if (cells[index] == value) {
+            return false;
+        }
+        cells[index] = value;
+        size++;
+        // Keep the load factor at or below one half
+        if (size * 2 > cells.length) {
+            resize(cells.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return hasEmptyValue;
+        }
+        return cells[find(cells, value)] == value;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (hasEmptyValue) {
+            action.accept(EMPTY);
+        }
+        for (long cell : cells) {
+            if (cell != EMPTY) {
+                action.accept(cell);
+            }
+        }
+    }
+
+    /**
+     * Empties the set and shrinks it back to its initial capacity
+     */
+    public void clear() {
+        cells = newCells(MIN_CAPACITY);
+        size = 0;
+        hasEmptyValue = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Finds the cell holding the value, or the free cell where it belongs (linear probing)
+     */
+    private static int find(long[] cells, long value) {
+        int mask = cells.length - 1;
+        int index = mix(value) & mask;
+        while (cells[index] != EMPTY && cells[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static int mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private void resize(int capacity) {
+        long[] resized = newCells(capacity);
+        for (long cell : cells) {
+            if (cell != EMPTY) {
+                resized[find(resized, cell)] = cell;
+            }
+        }
+        cells = resized;
+    }
+
+    private static long[] newCells(int capacity) {
+        long[] cells = new long[capacity];
+        Arrays.fill(cells, EMPTY);
+        return cells;
+    }
+}
@@ -0,0 +1,82 @@
+package net.pixelateddream.macebattles.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+
+import java.lang.reflect.Method;
+
+/**
+ * Tracks server tick health
+ * MSPT (time spent inside a tick) comes from Paper's Server#getAverageTickTime, looked up once by reflection
+ * because the plugin compiles against the Spigot API. Spigot has no such measure, so there the interval
+ * between tick starts is used instead, which never drops below 50ms on a server that keeps up.
+ * {@link #tick()} must run once per server tick (a 1-tick repeating task).
+ */
+public class TickMonitor {
+    private static final double SMOOTHING = 0.05; // Weight of the newest sample (~20 tick window)
+    private static final Method GET_AVERAGE_TICK_TIME = findTickTimeSource();
+
+    private long lastTickNanos = -1;
+    private double averageIntervalMillis = 50.0;
+    private double lastIntervalMillis = 50.0;
+
+    private static Method findTickTimeSource() {
+        try {
+            return Server.class.getMethod("getAverageTickTime");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Records one server tick
+     */
+    public void tick() {
+        long now = System.nanoTime();
+        if (lastTickNanos != -1) {
+            lastIntervalMillis = (now - lastTickNanos) / 1_000_000.0;
+            averageIntervalMillis += (lastIntervalMillis - averageIntervalMillis) * SMOOTHING;
+        }
+        lastTickNanos = now;
+    }
+
+    /**
+     * Checks whether the server reports the time spent inside ticks (Paper)
+     */
+    public boolean isMsptMeasured() {
+        return GET_AVERAGE_TICK_TIME != null;
+    }
+
+    /**
+     * Gets the average milliseconds spent inside a tick
+     * Falls back to the smoothed tick interval where the server doesn't measure it, see {@link #isMsptMeasured()}.
+     */
+    public double getMspt() {
+        if (GET_AVERAGE_TICK_TIME != null) {
+            try {
+                return ((Number) GET_AVERAGE_TICK_TIME.invoke(Bukkit.getServer())).doubleValue();
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Fall through to the interval
+            }
+        }
+        return averageIntervalMillis;
+    }
+
+    /**
+     * Gets the smoothed milliseconds between tick starts (never below 50 on a server that keeps up)
+     */
+    public double getTickIntervalMillis() {
+        return averageIntervalMillis;
+    }
+
+    public double getLastTickIntervalMillis() {
+        return lastIntervalMillis;
+    }
+
+    /**
+     * Gets the smoothed ticks per second, capped at 20
+     */
+    public double getTps() {
+        return Math.min(20.0, 1000.0 / Math.max(1.0, averageIntervalMillis));
+    }
+}
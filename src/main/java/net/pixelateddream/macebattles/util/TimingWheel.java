@@ -0,0 +1,168 @@
+package net.pixelateddream.macebattles.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timing wheel for tick-based expirations
+ * One repeating task calls {@link #advance()} every server tick instead of one scheduler task per entry.
+ * Scheduling and cancelling are O(1); delays longer than one revolution wait extra rounds in their slot.
+ * Not thread safe, only use from the main server thread.
+ */
+public class TimingWheel {
+    private final Timeout[] slots; // Head of each slot's doubly linked list
+    private final int mask;
+    private final Logger logger;
+    private long currentTick = 0; // Ticks advanced so far
+    private int size = 0; // Pending timeouts across all slots
+
+    /**
+     * @param slotCount Number of slots (rounded up to a power of two), one tick per slot
+     */
+    public TimingWheel(int slotCount, Logger logger) {
+        int size = Integer.highestOneBit(Math.max(2, slotCount - 1)) << 1;
+        this.slots = new Timeout[size];
+        this.mask = size - 1;
+        this.logger = logger;
+    }
+
+    /**
+     * Schedules a task to run after the given number of ticks
+     * @return Handle that can cancel the task before it runs
+     */
+    public Timeout schedule(Runnable task, long delayTicks) {
+        long delay = Math.max(1, delayTicks);
+        long deadline = currentTick + delay;
+
+        Timeout timeout = new Timeout(task, deadline);
+        timeout.slot = (int) (deadline & mask);
+        timeout.rounds = (delay - 1) / slots.length;
+        link(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel by one tick and runs every timeout that is due
+     */
+    public void advance() {
+        currentTick++;
+
+        // Collect due timeouts first so tasks can freely schedule or cancel while they run
+        List<Timeout> due = null;
+        Timeout timeout = slots[(int) (currentTick & mask)];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                unlink(timeout);
+                timeout.due = true;
+                if (due == null) {
+                    due = new ArrayList<>();
+                }
+                due.add(timeout);
+            }
+            timeout = next;
+        }
+
+        if (due == null) {
+            return;
+        }
+        for (Timeout expired : due) {
+            if (!expired.due) {
+                continue; // Cancelled by an earlier task this tick
+            }
+            expired.due = false;
+            try {
+                expired.task.run();
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Timing wheel task failed", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of timeouts still waiting to run
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    private void link(Timeout timeout) {
+        Timeout head = slots[timeout.slot];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        slots[timeout.slot] = timeout;
+        timeout.linked = true;
+        size++;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.linked = false;
+        size--;
+    }
+
+    /**
+     * Handle to a scheduled task
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadlineTick;
+        private int slot;
+        private long rounds; // Full revolutions left before the task is due
+        private Timeout prev;
+        private Timeout next;
+        private boolean linked;
+        private boolean due; // Unlinked this tick but not run yet
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Cancels the task if it has not run yet
+         * @return true if the task was still pending
+         */
+        public boolean cancel() {
+            if (linked) {
+                unlink(this);
+                return true;
+            }
+            if (due) {
+                due = false;
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isPending() {
+            return linked || due;
+        }
+
+        /**
+         * Gets the ticks left until the task runs (0 once it ran or was cancelled)
+         */
+        public long getRemainingTicks() {
+            return linked ? Math.max(0, deadlineTick - currentTick) : 0;
+        }
+    }
+}
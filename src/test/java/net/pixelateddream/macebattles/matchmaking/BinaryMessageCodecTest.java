@@ -0,0 +1,304 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryMessageCodecTest {
+    private final BinaryMessageCodec codec = new BinaryMessageCodec();
+    private final MatchmakerMessageAdapter jsonDecoder = new MatchmakerMessageAdapter();
+    private final Gson gson = new Gson();
+    private final Random random = new Random(7);
+
+    @Test
+    void outboundMessagesRoundTrip() {
+        for (JsonObject message : outboundMessages()) {
+            assertEquals(message, codec.decodeObject(ByteBuffer.wrap(codec.encode(message))), message.toString());
+        }
+    }
+
+    @Test
+    void inboundMessagesDecodeLikeTheirJson() {
+        for (JsonObject message : inboundMessages()) {
+            MatchmakerMessage fromJson = jsonDecoder.decode(gson.toJson(message));
+            MatchmakerMessage fromBinary = codec.decode(ByteBuffer.wrap(codec.encode(message)));
+            assertEquals(fromJson, fromBinary, message.toString());
+        }
+    }
+
+    @Test
+    void unknownFieldsAreSkipped() {
+        JsonObject message = inboundMessages().getFirst();
+        JsonObject extended = message.deepCopy();
+        JsonArray nested = new JsonArray();
+        nested.add(message.deepCopy());
+        nested.add(3.5);
+        extended.add("added_by_a_newer_server", nested);
+
+        assertEquals(codec.decode(ByteBuffer.wrap(codec.encode(message))),
+                codec.decode(ByteBuffer.wrap(codec.encode(extended))));
+    }
+
+    @Test
+    void binaryFramesAreAFractionOfTheirJson() {
+        // One matchmaking cycle for 100 players: queue, queued, match_found, match_result, result_processed,
+        // plus heartbeats, pings and a ratings lookup
+        List<JsonObject> traffic = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            UUID player1 = UUID.randomUUID();
+            UUID player2 = UUID.randomUUID();
+            String matchUuid = UUID.randomUUID().toString();
+            for (UUID player : List.of(player1, player2)) {
+                traffic.add(queue(player));
+                traffic.add(queued(player));
+            }
+            traffic.add(matchFound(matchUuid, player1, player2));
+            traffic.add(matchResult(matchUuid, player1, player2));
+            traffic.add(resultProcessed(matchUuid));
+            traffic.add(heartbeat());
+            traffic.add(message("ping"));
+        }
+        traffic.add(ratingsResponse(100));
+
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (JsonObject message : traffic) {
+            jsonBytes += gson.toJson(message).getBytes(StandardCharsets.UTF_8).length;
+            binaryBytes += codec.encode(message).length;
+        }
+        double ratio = (double) binaryBytes / jsonBytes;
+        assertTrue(ratio < 0.5, String.format("binary-v1 %d bytes vs JSON %d bytes (%.0f%%)", binaryBytes, jsonBytes, ratio * 100));
+    }
+
+    @Test
+    void lengthPastTheEndOfTheFrameIsRejected() {
+        // type: STRING with a length of 2^31 - 1 and no bytes behind it
+        byte[] frame = frame(1, 1, 5, 0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+        assertThrows(JsonParseException.class, () -> codec.decode(ByteBuffer.wrap(frame)));
+        assertThrows(JsonParseException.class, () -> codec.decodeObject(ByteBuffer.wrap(frame)));
+    }
+
+    @Test
+    void countPastTheEndOfTheFrameIsRejected() {
+        // ratings: ARRAY of 2^31 - 1 elements
+        byte[] ratings = frame(1, 14, 8, 0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+        assertThrows(JsonParseException.class, () -> codec.decode(ByteBuffer.wrap(ratings)));
+        // Field count of 2^31 - 1
+        byte[] fields = frame(0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+        assertThrows(JsonParseException.class, () -> codec.decode(ByteBuffer.wrap(fields)));
+    }
+
+    @Test
+    void lengthAboveIntRangeIsRejected() {
+        // Unknown field name with a length of 2^32 - 1, would be negative as an int
+        byte[] frame = frame(1, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+        assertThrows(JsonParseException.class, () -> codec.decode(ByteBuffer.wrap(frame)));
+    }
+
+    @Test
+    void truncatedSkippedValueIsRejected() {
+        // Unknown field (key past the dictionary) holding a DOUBLE cut short
+        byte[] doubleFrame = frame(1, 0x7F, 4, 1, 2, 3);
+        assertThrows(JsonParseException.class, () -> codec.decode(ByteBuffer.wrap(doubleFrame)));
+        // ... and a UUID cut short
+        byte[] uuidFrame = frame(1, 0x7F, 7, 1, 2, 3, 4, 5, 6, 7, 8);
+        assertThrows(JsonParseException.class, () -> codec.decode(ByteBuffer.wrap(uuidFrame)));
+    }
+
+    @Test
+    void deepNestingIsRejected() {
+        // Unknown field holding arrays nested 1000 deep
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xB1);
+        out.write(1);
+        out.write(0x7F);
+        for (int i = 0; i < 1000; i++) {
+            out.write(8);
+            out.write(1);
+        }
+        out.write(0);
+        byte[] frame = out.toByteArray();
+        assertThrows(JsonParseException.class, () -> codec.decode(ByteBuffer.wrap(frame)));
+        assertThrows(JsonParseException.class, () -> codec.decodeObject(ByteBuffer.wrap(frame)));
+    }
+
+    @Test
+    void unknownVersionIsRejected() {
+        assertThrows(JsonParseException.class, () -> codec.decode(ByteBuffer.wrap(new byte[]{1, 0})));
+    }
+
+    /**
+     * Builds a frame from the version byte and the given bytes
+     */
+    private static byte[] frame(int... bytes) {
+        byte[] frame = new byte[bytes.length + 1];
+        frame[0] = (byte) 0xB1;
+        for (int i = 0; i < bytes.length; i++) {
+            frame[i + 1] = (byte) bytes[i];
+        }
+        return frame;
+    }
+
+    private List<JsonObject> outboundMessages() {
+        UUID player1 = UUID.randomUUID();
+        UUID player2 = UUID.randomUUID();
+        String matchUuid = UUID.randomUUID().toString();
+
+        JsonObject hello = message("hello");
+        JsonArray formats = new JsonArray();
+        formats.add("binary-v1");
+        formats.add("json");
+        hello.add("formats", formats);
+        hello.addProperty("compression", true);
+        hello.addProperty("batching", true);
+
+        JsonObject bulk = message("queue_bulk");
+        bulk.addProperty("node_id", "node-25565");
+        JsonArray players = new JsonArray();
+        for (UUID player : List.of(player1, player2)) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("player_uuid", player.toString());
+            entry.addProperty("mode", "ranked");
+            entry.addProperty("queued_at", 1_760_000_000_000L);
+            players.add(entry);
+        }
+        bulk.add("players", players);
+
+        JsonObject batch = message("batch");
+        JsonArray messages = new JsonArray();
+        messages.add(queue(player1));
+        messages.add(heartbeat());
+        batch.add("messages", messages);
+
+        JsonObject rejected = heartbeat();
+        rejected.addProperty("type", "match_rejected");
+        rejected.addProperty("match_uuid", matchUuid);
+        rejected.addProperty("reason", "no_free_slots");
+
+        JsonObject odd = message("cancel_queue");
+        odd.addProperty("player_uuid", player1.toString().toUpperCase()); // Not canonical, must stay a string
+        odd.addProperty("negative", -42);
+        odd.addProperty("fraction", 0.125);
+        odd.add("nothing", null);
+
+        return List.of(hello, queue(player1), bulk, batch, heartbeat(), rejected,
+                matchResult(matchUuid, player1, player2), odd);
+    }
+
+    private List<JsonObject> inboundMessages() {
+        UUID player1 = UUID.randomUUID();
+        UUID player2 = UUID.randomUUID();
+        String matchUuid = UUID.randomUUID().toString();
+
+        JsonObject helloAck = message("hello_ack");
+        helloAck.addProperty("format", "binary-v1");
+        helloAck.addProperty("compression", false);
+        helloAck.addProperty("batching", true);
+
+        JsonObject snapshot = message("queue_snapshot");
+        JsonArray uuids = new JsonArray();
+        uuids.add(player1.toString());
+        uuids.add(player2.toString());
+        snapshot.add("player_uuids", uuids);
+
+        JsonObject error = message("error");
+        error.addProperty("player_uuid", player1.toString());
+        error.addProperty("message", "Ranked queue is currently disabled");
+
+        JsonObject cancelled = message("queue_cancelled");
+        cancelled.addProperty("player_uuid", player2.toString());
+
+        return List.of(matchFound(matchUuid, player1, player2), queued(player1), resultProcessed(matchUuid),
+                ratingsResponse(5), helloAck, snapshot, error, cancelled, message("pong"));
+    }
+
+    private JsonObject message(String type) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", type);
+        message.addProperty("request_id", "mgv1k2x3-" + random.nextInt(100_000));
+        return message;
+    }
+
+    private JsonObject queue(UUID player) {
+        JsonObject message = message("queue");
+        message.addProperty("player_uuid", player.toString());
+        message.addProperty("mode", "ranked");
+        message.addProperty("node_id", "node-25565");
+        return message;
+    }
+
+    private JsonObject queued(UUID player) {
+        JsonObject message = message("queued");
+        message.addProperty("player_uuid", player.toString());
+        message.addProperty("mode", "ranked");
+        message.addProperty("rating", 1000 + random.nextInt(1000));
+        return message;
+    }
+
+    private JsonObject matchFound(String matchUuid, UUID player1, UUID player2) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "match_found");
+        message.addProperty("match_uuid", matchUuid);
+        message.addProperty("player1_uuid", player1.toString());
+        message.addProperty("player2_uuid", player2.toString());
+        message.addProperty("mode", "ranked");
+        message.addProperty("target_node", "node-25565");
+        return message;
+    }
+
+    private JsonObject matchResult(String matchUuid, UUID player1, UUID player2) {
+        JsonObject message = message("match_result");
+        message.addProperty("match_uuid", matchUuid);
+        message.addProperty("player1_uuid", player1.toString());
+        message.addProperty("player2_uuid", player2.toString());
+        message.addProperty("player1_rounds", 3);
+        message.addProperty("player2_rounds", random.nextInt(3));
+        return message;
+    }
+
+    private JsonObject resultProcessed(String matchUuid) {
+        JsonObject message = message("result_processed");
+        message.addProperty("match_uuid", matchUuid);
+        message.addProperty("player1_new_rating", 1000 + random.nextInt(1000));
+        message.addProperty("player2_new_rating", 1000 + random.nextInt(1000));
+        return message;
+    }
+
+    private JsonObject ratingsResponse(int count) {
+        JsonObject message = message("ratings_response");
+        JsonArray ratings = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("player_uuid", UUID.randomUUID().toString());
+            entry.addProperty("rating", 1000 + random.nextInt(1000));
+            ratings.add(entry);
+        }
+        message.add("ratings", ratings);
+        return message;
+    }
+
+    private JsonObject heartbeat() {
+        JsonObject message = message("node_heartbeat");
+        message.addProperty("node_id", "node-25565");
+        message.addProperty("free_slots", 17);
+        message.addProperty("mspt", 12.37);
+        message.addProperty("active_matches", 3);
+        message.addProperty("online_players", 42);
+        message.addProperty("accepting", true);
+        return message;
+    }
+}
@@ -0,0 +1,310 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stand-in for the matchmaking server over a fake transport
+ * Negotiates batch frames and its preferred wire format (binary-v1 only if the hello offers it), answers pings,
+ * pairs queued players first come first served per mode (routed to the node the second player queued on) and
+ * confirms match results. Server-initiated messages can be pushed with {@link #push}. Replies are handed to the
+ * listener straight from the send, so they reach the plugin through its real inbound path (decoder, inbound
+ * queue, per-tick drain). Counts the bytes of every frame in both directions.
+ */
+public class FakeMatchmaker implements MatchmakerTransport {
+    private final Listener listener;
+    private final WireFormat preferredFormat;
+    private final Gson gson = new Gson();
+    private final BinaryMessageCodec codec = new BinaryMessageCodec();
+    private WireFormat format = WireFormat.JSON; // Format of replies, switched once hello_ack is sent
+    private final Map<String, ArrayDeque<UUID>> waiting = new HashMap<>(); // Mode -> queued players
+    private final Map<UUID, String> queuedOn = new HashMap<>(); // Player -> node_id of their queue message
+    private final Map<String, List<JsonObject>> received = new HashMap<>(); // Messages received, by type (batches unpacked)
+    private final Map<String, Integer> unhandledTypes = new HashMap<>(); // Frames the stand-in ignores, by type
+    private boolean open = false;
+    private boolean congested = false; // Reported as unsent socket data, holds back all but CRITICAL messages
+    private int framesReceived = 0;
+    private int binaryFrames = 0; // A protocol error unless binary-v1 was negotiated
+    private long bytesReceived = 0;
+    private long bytesSent = 0;
+    private int matchesFound = 0;
+    private int resultsConfirmed = 0;
+
+    /**
+     * A stand-in that negotiates JSON
+     */
+    public FakeMatchmaker(Listener listener) {
+        this(listener, WireFormat.JSON);
+    }
+
+    public FakeMatchmaker(Listener listener, WireFormat preferredFormat) {
+        this.listener = listener;
+        this.preferredFormat = preferredFormat;
+    }
+
+    @Override
+    public void connect() {
+        open = true;
+        format = WireFormat.JSON;
+        listener.onOpen();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void sendText(String message) {
+        if (!open) {
+            throw new IllegalStateException("Fake matchmaker is not connected");
+        }
+        framesReceived++;
+        bytesReceived += message.getBytes(StandardCharsets.UTF_8).length;
+        handleFrame(JsonParser.parseString(message).getAsJsonObject());
+    }
+
+    @Override
+    public void sendBinary(byte[] message) {
+        if (!open) {
+            throw new IllegalStateException("Fake matchmaker is not connected");
+        }
+        framesReceived++;
+        bytesReceived += message.length;
+        binaryFrames++;
+        if (format == WireFormat.BINARY_V1) {
+            handleFrame(codec.decodeObject(ByteBuffer.wrap(message)));
+        }
+    }
+
+    @Override
+    public void resumeReading() {
+        // Replies are pushed as they are produced, there is no read to pause
+    }
+
+    @Override
+    public boolean hasBufferedData() {
+        return congested;
+    }
+
+    @Override
+    public boolean isCompressionActive() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        listener.onClose(1000, "Fake matchmaker closed", false);
+    }
+
+    /**
+     * Drops the connection from the server side, queue state is kept like a real matchmaker would
+     */
+    public void drop() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        listener.onClose(1006, "Fake matchmaker dropped the connection", true);
+    }
+
+    @Override
+    public String getName() {
+        return "fake";
+    }
+
+    private void handleFrame(JsonObject frame) {
+        String type = frame.get("type").getAsString();
+        if (!type.equals("batch")) {
+            received.computeIfAbsent(type, key -> new ArrayList<>()).add(frame);
+        }
+        switch (type) {
+            case "batch" -> {
+                for (JsonElement message : frame.getAsJsonArray("messages")) {
+                    handleFrame(message.getAsJsonObject());
+                }
+            }
+            case "hello" -> {
+                boolean offered = false;
+                for (JsonElement offer : frame.getAsJsonArray("formats")) {
+                    offered |= offer.getAsString().equals(preferredFormat.getName());
+                }
+                JsonObject ack = reply(frame, "hello_ack");
+                ack.addProperty("format", (offered ? preferredFormat : WireFormat.JSON).getName());
+                ack.addProperty("batching", true);
+                send(ack);
+                format = offered ? preferredFormat : WireFormat.JSON;
+            }
+            case "ping" -> send(reply(frame, "pong"));
+            case "queue" -> handleQueue(frame);
+            case "cancel_queue" -> {
+                UUID playerUUID = UUID.fromString(frame.get("player_uuid").getAsString());
+                waiting.values().forEach(queue -> queue.remove(playerUUID));
+                JsonObject cancelled = reply(frame, "queue_cancelled");
+                cancelled.addProperty("player_uuid", playerUUID.toString());
+                send(cancelled);
+            }
+            case "match_result" -> confirmResult(frame);
+            case "match_result_batch" -> {
+                for (JsonElement result : frame.getAsJsonArray("results")) {
+                    confirmResult(result.getAsJsonObject());
+                }
+            }
+            case "register_node", "node_heartbeat", "match_rejected" -> {
+                // Recorded above, a real matchmaker would update its routing table
+            }
+            default -> unhandledTypes.merge(type, 1, Integer::sum); // Capacity heartbeats and the like need no answer
+        }
+    }
+
+    private void handleQueue(JsonObject frame) {
+        UUID playerUUID = UUID.fromString(frame.get("player_uuid").getAsString());
+        String mode = frame.has("mode") ? frame.get("mode").getAsString() : "casual";
+
+        JsonObject queued = reply(frame, "queued");
+        queued.addProperty("player_uuid", playerUUID.toString());
+        queued.addProperty("mode", mode);
+        queued.addProperty("rating", 1000);
+        send(queued);
+
+        ArrayDeque<UUID> queue = waiting.computeIfAbsent(mode, key -> new ArrayDeque<>());
+        queue.addLast(playerUUID);
+        if (frame.has("node_id")) {
+            queuedOn.put(playerUUID, frame.get("node_id").getAsString());
+        }
+        if (queue.size() >= 2) {
+            UUID player1UUID = queue.pollFirst();
+            UUID player2UUID = queue.pollFirst();
+            queuedOn.remove(player1UUID);
+            String targetNode = queuedOn.remove(player2UUID);
+            JsonObject match = new JsonObject();
+            match.addProperty("type", "match_found");
+            match.addProperty("match_uuid", UUID.randomUUID().toString());
+            match.addProperty("player1_uuid", player1UUID.toString());
+            match.addProperty("player2_uuid", player2UUID.toString());
+            match.addProperty("mode", mode);
+            if (targetNode != null) {
+                match.addProperty("target_node", targetNode);
+            }
+            matchesFound++;
+            send(match);
+        }
+    }
+
+    private void confirmResult(JsonObject result) {
+        JsonObject processed = reply(result, "result_processed");
+        processed.add("match_uuid", result.get("match_uuid"));
+        processed.addProperty("player1_new_rating", 1000);
+        processed.addProperty("player2_new_rating", 1000);
+        resultsConfirmed++;
+        send(processed);
+    }
+
+    /**
+     * Starts a reply that echoes the request ID
+     */
+    private JsonObject reply(JsonObject request, String type) {
+        JsonObject reply = new JsonObject();
+        reply.addProperty("type", type);
+        if (request.has("request_id")) {
+            reply.add("request_id", request.get("request_id"));
+        }
+        return reply;
+    }
+
+    private void send(JsonObject message) {
+        if (format == WireFormat.BINARY_V1) {
+            byte[] frame = codec.encode(message);
+            bytesSent += frame.length;
+            listener.onBinary(ByteBuffer.wrap(frame));
+        } else {
+            String frame = gson.toJson(message);
+            bytesSent += frame.getBytes(StandardCharsets.UTF_8).length;
+            listener.onText(frame);
+        }
+    }
+
+    /**
+     * Sends a message to the plugin as if the matchmaker had initiated it
+     */
+    public void push(JsonObject message) {
+        if (!open) {
+            throw new IllegalStateException("Fake matchmaker is not connected");
+        }
+        send(message);
+    }
+
+    /**
+     * Makes the transport report unsent data, like a socket that can't keep up
+     */
+    public void setCongested(boolean congested) {
+        this.congested = congested;
+    }
+
+    /**
+     * Checks whether a player is waiting in any queue of the stand-in
+     */
+    public boolean isWaiting(UUID playerUUID) {
+        return waiting.values().stream().anyMatch(queue -> queue.contains(playerUUID));
+    }
+
+    public int getReceived(String type) {
+        return getMessages(type).size();
+    }
+
+    /**
+     * Gets every message of a type received from the plugin, oldest first
+     */
+    public List<JsonObject> getMessages(String type) {
+        return received.getOrDefault(type, List.of());
+    }
+
+    public int getFramesReceived() {
+        return framesReceived;
+    }
+
+    public int getBinaryFrames() {
+        return binaryFrames;
+    }
+
+    /**
+     * Gets the bytes of every frame received from the plugin
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Gets the bytes of every frame sent to the plugin
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public int getMatchesFound() {
+        return matchesFound;
+    }
+
+    public int getResultsConfirmed() {
+        return resultsConfirmed;
+    }
+
+    public Map<String, Integer> getUnhandledTypes() {
+        return unhandledTypes;
+    }
+}
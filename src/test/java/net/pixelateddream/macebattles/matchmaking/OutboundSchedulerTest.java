@@ -0,0 +1,115 @@
+package net.pixelateddream.macebattles.matchmaking;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundSchedulerTest {
+    private final List<JsonObject> dropped = new ArrayList<>();
+    private final OutboundScheduler scheduler = new OutboundScheduler(4, 10, 100, dropped::add);
+
+    @Test
+    void drainsHigherPrioritiesFirst() {
+        enqueue(message("get_rating", null));
+        enqueue(message("queue", "a"));
+        enqueue(message("match_result", null));
+
+        List<JsonObject> frames = scheduler.drainFrames(false, false);
+        assertEquals(List.of("match_result", "queue", "get_rating"), frames.stream().map(OutboundSchedulerTest::type).toList());
+    }
+
+    @Test
+    void congestionReleasesOnlyCriticalMessages() {
+        enqueue(message("queue", "a"));
+        enqueue(message("cancel_queue", "b"));
+
+        List<JsonObject> frames = scheduler.drainFrames(true, true);
+        assertEquals(1, frames.size());
+        assertEquals("cancel_queue", type(frames.getFirst()));
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    void fullBufferEvictsTheLowestLaneButNeverCritical() {
+        enqueue(message("match_result", null));
+        enqueue(message("match_result", null));
+        enqueue(message("queue", "a"));
+        enqueue(message("get_rating", null));
+
+        enqueue(message("queue", "b")); // Evicts get_rating
+        assertEquals(List.of("get_rating"), dropped.stream().map(OutboundSchedulerTest::type).toList());
+        enqueue(message("match_result", null)); // Evicts the oldest queue join
+        assertFalse(scheduler.enqueue(message("queue", "c"), OutboundPriority.HIGH)); // Nothing less important left
+        enqueue(message("match_result", null)); // Evicts the last queue join
+        assertFalse(scheduler.enqueue(message("match_result", null), OutboundPriority.CRITICAL));
+
+        assertEquals(3, dropped.size());
+        assertEquals(2, scheduler.getRejected());
+        assertEquals(4, scheduler.size());
+    }
+
+    @Test
+    void withdrawQueueRemovesAPlayersUnsentJoin() {
+        enqueue(message("queue", "a"));
+        enqueue(message("queue", "b"));
+
+        List<JsonObject> withdrawn = scheduler.withdrawQueue("a");
+        assertEquals(1, withdrawn.size());
+        assertEquals(1, scheduler.size());
+        List<JsonObject> frames = scheduler.drainFrames(false, false);
+        assertEquals("b", frames.getFirst().get("player_uuid").getAsString());
+    }
+
+    @Test
+    void withdrawQueueTakesThePlayerOutOfBulkJoins() {
+        JsonObject bulk = new JsonObject();
+        bulk.addProperty("type", "queue_bulk");
+        JsonArray players = new JsonArray();
+        players.add(message(null, "a"));
+        players.add(message(null, "b"));
+        bulk.add("players", players);
+        enqueue(bulk);
+
+        assertTrue(scheduler.withdrawQueue("a").isEmpty());
+        assertEquals(1, bulk.getAsJsonArray("players").size());
+        assertEquals(1, scheduler.size());
+
+        assertEquals(List.of(bulk), scheduler.withdrawQueue("b"));
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void withdrawQueueLeavesOtherMessagesAlone() {
+        enqueue(message("cancel_queue", "a"));
+        enqueue(message("get_rating", "a"));
+
+        assertTrue(scheduler.withdrawQueue("a").isEmpty());
+        assertEquals(2, scheduler.size());
+    }
+
+    private void enqueue(JsonObject message) {
+        assertTrue(scheduler.enqueue(message, OutboundPriority.forType(type(message))));
+    }
+
+    private static JsonObject message(String type, String playerUuid) {
+        JsonObject message = new JsonObject();
+        if (type != null) {
+            message.addProperty("type", type);
+        }
+        if (playerUuid != null) {
+            message.addProperty("player_uuid", playerUuid);
+        }
+        return message;
+    }
+
+    private static String type(JsonObject message) {
+        return message.get("type").getAsString();
+    }
+}
@@ -0,0 +1,226 @@
+package net.pixelateddream.macebattles.misc;
+
+import com.google.gson.JsonObject;
+import net.pixelateddream.macebattles.matchmaking.FakeMatchmaker;
+import net.pixelateddream.macebattles.matchmaking.WireFormat;
+import net.pixelateddream.macebattles.misc.MatchmakingListener.QueueType;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * MatchmakingListener against a {@link FakeMatchmaker}
+ */
+class MatchmakingListenerTest {
+    @TempDir
+    File dataFolder;
+
+    private ServerMock server;
+    private FakeMatchmaker matchmaker;
+    private MatchmakingTestNode node;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        node = new MatchmakingTestNode(server, dataFolder, "node-a", config -> {}, (uri, listener) -> {
+            matchmaker = new FakeMatchmaker(listener);
+            return matchmaker;
+        });
+        // Let the connection open and the hello_ack arrive
+        server.getScheduler().performTicks(5);
+        assertTrue(node.listener.isConnected(), "Not connected to the fake matchmaker");
+    }
+
+    @AfterEach
+    void tearDown() {
+        node.listener.disconnect();
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void cancelInTheSameTickAsQueueLeavesNoQueueEntry() {
+        Player player = server.addPlayer();
+
+        node.listener.queuePlayer(player, QueueType.CASUAL);
+        node.listener.dequeuePlayer(player);
+        server.getScheduler().performTicks(2);
+
+        assertFalse(node.listener.isPlayerQueued(player.getUniqueId()));
+        assertFalse(matchmaker.isWaiting(player.getUniqueId()), "Matchmaker kept a queue entry the plugin cancelled");
+        assertEquals(0, matchmaker.getReceived("queue"), "The withdrawn queue join was still sent");
+    }
+
+    @Test
+    void cancelWhileCongestedLeavesNoQueueEntry() {
+        Player player = server.addPlayer();
+        matchmaker.setCongested(true);
+
+        // Only CRITICAL messages go out while congested, the join waits in the buffer
+        node.listener.queuePlayer(player, QueueType.CASUAL);
+        server.getScheduler().performOneTick();
+        node.listener.dequeuePlayer(player);
+        server.getScheduler().performOneTick();
+        matchmaker.setCongested(false);
+        server.getScheduler().performTicks(2);
+
+        assertFalse(matchmaker.isWaiting(player.getUniqueId()), "Matchmaker kept a queue entry the plugin cancelled");
+        assertEquals(1, matchmaker.getReceived("cancel_queue"));
+        assertEquals(0, matchmaker.getReceived("queue"));
+    }
+
+    @Test
+    void cancelAfterQueueWasSentRemovesQueueEntry() {
+        Player player = server.addPlayer();
+
+        node.listener.queuePlayer(player, QueueType.CASUAL);
+        server.getScheduler().performOneTick();
+        assertTrue(matchmaker.isWaiting(player.getUniqueId()));
+
+        node.listener.dequeuePlayer(player);
+        server.getScheduler().performOneTick();
+        assertFalse(matchmaker.isWaiting(player.getUniqueId()));
+    }
+
+    @Test
+    void leavingTheQueueWhileDisconnectedCancelsOnReconnect() {
+        PlayerMock player = server.addPlayer();
+        node.listener.queuePlayer(player, QueueType.CASUAL);
+        server.getScheduler().performOneTick();
+        assertTrue(matchmaker.isWaiting(player.getUniqueId()));
+
+        matchmaker.drop();
+        server.getScheduler().performOneTick();
+        assertFalse(node.listener.isConnected());
+        while (player.nextMessage() != null) {
+            // Skip the disconnect notice
+        }
+
+        // Inside the grace window the leave is taken locally, without an error
+        assertFalse(node.listener.dequeuePlayer(player).isCompletedExceptionally());
+        assertFalse(node.listener.isPlayerQueued(player.getUniqueId()));
+        String message;
+        while ((message = player.nextMessage()) != null) {
+            assertFalse(message.contains("Error"), message);
+        }
+
+        // The first reconnect comes within a second, then the cancel reaches the matchmaker
+        server.getScheduler().performTicks(40);
+        assertTrue(node.listener.isConnected());
+        assertEquals(1, matchmaker.getReceived("cancel_queue"));
+        assertFalse(matchmaker.isWaiting(player.getUniqueId()), "Matchmaker kept a queue entry left during the outage");
+    }
+
+    @Test
+    void binaryWireFormatNeedsFarFewerBytesThanJson() {
+        FakeMatchmaker[] binary = new FakeMatchmaker[1];
+        MatchmakingTestNode binaryNode = new MatchmakingTestNode(server, dataFolder, "node-b", config -> {},
+                (uri, listener) -> binary[0] = new FakeMatchmaker(listener, WireFormat.BINARY_V1));
+        server.getScheduler().performTicks(5);
+        assertEquals(WireFormat.JSON, node.listener.getWireFormat());
+        assertEquals(WireFormat.BINARY_V1, binaryNode.listener.getWireFormat());
+        long jsonBefore = matchmaker.getBytesReceived() + matchmaker.getBytesSent();
+        long binaryBefore = binary[0].getBytesReceived() + binary[0].getBytesSent();
+
+        // The same traffic through both nodes: queue joins and cancels, then heartbeats and pings
+        for (int i = 0; i < 20; i++) {
+            Player player = server.addPlayer();
+            for (MatchmakingTestNode each : List.of(node, binaryNode)) {
+                each.listener.queuePlayer(player, QueueType.RANKED);
+            }
+            server.getScheduler().performOneTick();
+            for (MatchmakingTestNode each : List.of(node, binaryNode)) {
+                each.listener.dequeuePlayer(player);
+            }
+            server.getScheduler().performOneTick();
+        }
+        server.getScheduler().performTicks(200);
+
+        long jsonBytes = matchmaker.getBytesReceived() + matchmaker.getBytesSent() - jsonBefore;
+        long binaryBytes = binary[0].getBytesReceived() + binary[0].getBytesSent() - binaryBefore;
+        binaryNode.listener.disconnect();
+        assertEquals(0, matchmaker.getBinaryFrames());
+        assertTrue(binaryBytes < jsonBytes * 0.6, "binary-v1 " + binaryBytes + " bytes vs JSON " + jsonBytes + " bytes");
+    }
+
+    @Test
+    void matchesAreRoutedByNode() {
+        FakeMatchmaker[] other = new FakeMatchmaker[1];
+        MatchmakingTestNode nodeB = new MatchmakingTestNode(server, dataFolder, "node-b", config -> {},
+                (uri, listener) -> other[0] = new FakeMatchmaker(listener));
+        // One heartbeat interval (5 seconds by default)
+        server.getScheduler().performTicks(105);
+
+        // Each node registers under its own ID and keeps its capacity fresh
+        for (FakeMatchmaker each : List.of(matchmaker, other[0])) {
+            assertEquals(1, each.getReceived("register_node"));
+            assertTrue(each.getReceived("node_heartbeat") >= 1, "No capacity heartbeat within a heartbeat interval");
+        }
+        assertEquals("node-a", matchmaker.getMessages("register_node").getFirst().get("node_id").getAsString());
+        assertEquals("node-b", other[0].getMessages("node_heartbeat").getFirst().get("node_id").getAsString());
+
+        Player player1 = server.addPlayer();
+        Player player2 = server.addPlayer();
+        for (MatchmakingTestNode each : List.of(node, nodeB)) {
+            each.listener.queuePlayer(player1, QueueType.CASUAL);
+        }
+        server.getScheduler().performOneTick();
+        assertEquals("node-a", matchmaker.getMessages("queue").getFirst().get("node_id").getAsString());
+        assertEquals("node-b", other[0].getMessages("queue").getFirst().get("node_id").getAsString());
+        node.listener.queuePlayer(player2, QueueType.RANKED); // Another mode, so the stand-in doesn't pair them itself
+        server.getScheduler().performOneTick();
+
+        // A match for node-b reaching node-a is left alone, the players stay queued there
+        matchmaker.push(matchFound(player1, player2, "node-b"));
+        server.getScheduler().performOneTick();
+        assertTrue(node.listener.isPlayerQueued(player1.getUniqueId()));
+        assertTrue(node.listener.isPlayerQueued(player2.getUniqueId()));
+        assertNull(node.listener.getMatchByPlayer(player1.getUniqueId()));
+        assertEquals(0, matchmaker.getReceived("match_rejected"));
+        verify(node.mapManager, never()).createRandomArena(any());
+
+        // node-b is routed the match but has no tick headroom, it hands the match back
+        when(nodeB.tickMonitor.getTickIntervalMillis()).thenReturn(200.0);
+        JsonObject match = matchFound(player1, player2, "node-b");
+        other[0].push(match);
+        server.getScheduler().performOneTick();
+        assertEquals(1, other[0].getReceived("match_rejected"));
+        JsonObject rejected = other[0].getMessages("match_rejected").getFirst();
+        assertEquals(match.get("match_uuid"), rejected.get("match_uuid"));
+        assertEquals("node-b", rejected.get("node_id").getAsString());
+        assertEquals("overloaded", rejected.get("reason").getAsString());
+        assertFalse(rejected.get("accepting").getAsBoolean());
+        assertTrue(nodeB.listener.isPlayerQueued(player1.getUniqueId()), "A rejected match must leave its players queued");
+        verify(nodeB.mapManager, never()).createRandomArena(any());
+
+        nodeB.listener.disconnect();
+    }
+
+    private static JsonObject matchFound(Player player1, Player player2, String targetNode) {
+        JsonObject match = new JsonObject();
+        match.addProperty("type", "match_found");
+        match.addProperty("match_uuid", UUID.randomUUID().toString());
+        match.addProperty("player1_uuid", player1.getUniqueId().toString());
+        match.addProperty("player2_uuid", player2.getUniqueId().toString());
+        match.addProperty("mode", "casual");
+        match.addProperty("target_node", targetNode);
+        return match;
+    }
+}
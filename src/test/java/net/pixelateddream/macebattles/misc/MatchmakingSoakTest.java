@@ -0,0 +1,236 @@
+package net.pixelateddream.macebattles.misc;
+
+import net.pixelateddream.macebattles.match.ActiveMatch;
+import net.pixelateddream.macebattles.match.ArenaInstance;
+import net.pixelateddream.macebattles.match.MatchDeathListener;
+import net.pixelateddream.macebattles.matchmaking.FakeMatchmaker;
+import net.pixelateddream.macebattles.misc.MatchmakingListener.QueueType;
+import net.pixelateddream.macebattles.util.LatencyHistogram;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BlockVector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * End-to-end matchmaking soak run on a mock server
+ * Synthetic players go through the real MatchmakingListener against a {@link FakeMatchmaker}: queue, match_found,
+ * match start, rounds ended by player deaths through the real MatchDeathListener, match_result and result_processed,
+ * then queue again until the target number of matches has completed. Fails if a budget is exceeded.
+ * The default is the full soak, 200 concurrent duels and 2000 matches. Sizes and budgets can be overridden with
+ * system properties (soak.duels, soak.matches, soak.tick-p99-millis, soak.queue-to-match-p99-millis), e.g.
+ * -Dsoak.duels=8 -Dsoak.matches=40 for a quick local run.
+ * Arena placement is stubbed, the mock server has no world engine, so arena setup time is not measured here.
+ */
+class MatchmakingSoakTest {
+    private static final Logger LOGGER = Logger.getLogger("MacebattlesSoak");
+    private static final int DUELS = Integer.getInteger("soak.duels", 200); // Concurrent duels (twice as many players)
+    private static final int MATCHES = Integer.getInteger("soak.matches", 2000); // Matches to complete
+    private static final double TICK_P99_MILLIS = Double.parseDouble(System.getProperty("soak.tick-p99-millis", "25"));
+    // Server time from queuePlayer to the arena teleport. The histogram reports bucket upper bounds, 5 ticks reads as 262ms
+    private static final double QUEUE_TO_MATCH_P99_MILLIS = Double.parseDouble(System.getProperty("soak.queue-to-match-p99-millis", "300"));
+    private static final int WARMUP_TICKS = 200; // Not measured, class loading and JIT
+    private static final int MAX_TICKS = 200_000; // The run fails if the matches haven't completed by then
+    private static final int MIN_FIGHT_TICKS = 20; // Simulated round length before someone dies
+    private static final int MAX_FIGHT_TICKS = 100;
+
+    @TempDir
+    File dataFolder;
+
+    private ServerMock server;
+    private World world;
+    private MatchmakingTestNode node;
+    private FakeMatchmaker matchmaker;
+    private final Random random = new Random(42);
+    private final Map<String, List<Player>> playersByArena = new HashMap<>(); // Arena ID -> players teleported into it
+    private final ArrayDeque<Player> toQueue = new ArrayDeque<>(); // Players to queue on the next tick
+    private final Map<UUID, Integer> queuedAtTick = new HashMap<>();
+    private final Map<String, Integer> fightTicks = new HashMap<>(); // Match ID -> ticks until the next death
+    private final LatencyHistogram queueToMatch = new LatencyHistogram(); // Server time, ticks times 50ms
+    private final LatencyHistogram tickCost = new LatencyHistogram(); // Work done inside each tick
+    private int arenaCounter = 0;
+    private int matchesCompleted = 0;
+    private int tick = 0;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        world = server.addSimpleWorld("world");
+
+        node = new MatchmakingTestNode(server, dataFolder, "soak-node",
+                config -> config.set("matchmaking.node.max-concurrent-matches", DUELS),
+                (uri, transportListener) -> {
+                    matchmaker = new FakeMatchmaker(transportListener);
+                    return matchmaker;
+                });
+
+        when(node.mapManager.createRandomArena(any())).thenAnswer(call -> createArena());
+        doAnswer(call -> {
+            Map<Integer, Player> players = call.getArgument(0);
+            ArenaInstance arena = call.getArgument(1);
+            players.forEach((index, player) -> player.teleport(arena.getSpawnPoint(index)));
+            matchStarted(arena, players.values());
+            return null;
+        }).when(node.mapManager).teleportPlayersToArena(anyMap(), any());
+        doAnswer(call -> {
+            arenaReleased(call.getArgument(0));
+            return null;
+        }).when(node.mapManager).releaseArena(anyString());
+
+        server.getPluginManager().registerEvents(new MatchDeathListener(node.plugin), node.plugin);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (node != null) {
+            node.listener.disconnect();
+        }
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void matchesCompleteWithinBudgets() {
+        assertNotNull(matchmaker, "The listener did not create its transport");
+        // Let the connection open and the hello_ack arrive before anyone queues
+        for (int i = 0; i < 5; i++) {
+            runTick(false);
+        }
+        assertTrue(node.listener.isConnected(), "Not connected to the fake matchmaker");
+
+        for (int i = 0; i < DUELS * 2; i++) {
+            toQueue.add(server.addPlayer());
+        }
+
+        while (matchesCompleted < MATCHES && tick < MAX_TICKS) {
+            runTick(tick >= WARMUP_TICKS);
+        }
+
+        String report = report();
+        LOGGER.info(report);
+        assertTrue(matchesCompleted >= MATCHES, "Only " + matchesCompleted + " of " + MATCHES + " matches completed\n" + report);
+        assertTrue(matchmaker.getResultsConfirmed() >= MATCHES, "Results confirmed by the matchmaker: "
+                + matchmaker.getResultsConfirmed() + "\n" + report);
+        assertEquals(0, matchmaker.getBinaryFrames(), "Binary frames sent without negotiating binary-v1");
+        double queueToMatchP99 = queueToMatch.getPercentileMillis(99);
+        assertTrue(queueToMatchP99 <= QUEUE_TO_MATCH_P99_MILLIS, String.format("Queue to match p99 %.0fms > %.0fms%n%s",
+                queueToMatchP99, QUEUE_TO_MATCH_P99_MILLIS, report));
+        double tickP99 = tickCost.getPercentileMillis(99);
+        assertTrue(tickP99 <= TICK_P99_MILLIS, String.format("Tick cost p99 %.1fms > %.1fms%n%s", tickP99, TICK_P99_MILLIS, report));
+    }
+
+    /**
+     * Runs one server tick plus the deaths due this tick, which is where the listeners do their work
+     */
+    private void runTick(boolean measure) {
+        long start = System.nanoTime();
+        while (!toQueue.isEmpty()) {
+            Player player = toQueue.pollFirst();
+            queuedAtTick.put(player.getUniqueId(), tick);
+            node.listener.queuePlayer(player, QueueType.RANKED);
+        }
+        server.getScheduler().performOneTick();
+        killPlayersDue();
+        if (measure) {
+            tickCost.recordNanos(System.nanoTime() - start);
+        }
+        tick++;
+    }
+
+    /**
+     * Ends rounds that ran their course with a player death, which MatchDeathListener turns into a round result
+     */
+    private void killPlayersDue() {
+        Set<ActiveMatch> matches = new LinkedHashSet<>();
+        for (Player player : server.getOnlinePlayers()) {
+            ActiveMatch match = node.listener.getMatchByPlayer(player.getUniqueId());
+            if (match != null && !match.isProcessingRoundEnd()) {
+                matches.add(match);
+            }
+        }
+        for (ActiveMatch match : matches) {
+            int left = fightTicks.computeIfAbsent(match.getMatchId(), id -> nextFightTicks()) - 1;
+            if (left > 0) {
+                fightTicks.put(match.getMatchId(), left);
+                continue;
+            }
+            fightTicks.put(match.getMatchId(), nextFightTicks());
+            UUID loser = random.nextBoolean() ? match.getPlayer1UUID() : match.getPlayer2UUID();
+            Player player = server.getPlayer(loser);
+            assertNotNull(player, "Player in a match went offline");
+            player.setHealth(0);
+        }
+    }
+
+    private ArenaInstance createArena() {
+        int index = arenaCounter++;
+        Location base = new Location(world, index * 64.0, 100, 0);
+        ArenaInstance arena = new ArenaInstance("soak_" + index, "soak", base, new BlockVector(32, 16, 32), -1);
+        arena.addSpawnPoint(0, base.clone().add(4, 1, 4));
+        arena.addSpawnPoint(1, base.clone().add(28, 1, 28));
+        return arena;
+    }
+
+    private void matchStarted(ArenaInstance arena, Iterable<Player> players) {
+        List<Player> list = new ArrayList<>();
+        for (Player player : players) {
+            list.add(player);
+            Integer queued = queuedAtTick.remove(player.getUniqueId());
+            if (queued != null) {
+                queueToMatch.recordMillis((tick - queued) * 50L);
+            }
+        }
+        playersByArena.put(arena.getId(), list);
+    }
+
+    /**
+     * The match's last step, both players are back in the lobby and queue again
+     */
+    private void arenaReleased(String arenaId) {
+        List<Player> players = playersByArena.remove(arenaId);
+        assertNotNull(players, "Released an arena no match was started in: " + arenaId);
+        matchesCompleted++;
+        toQueue.addAll(players);
+    }
+
+    private int nextFightTicks() {
+        return MIN_FIGHT_TICKS + random.nextInt(MAX_FIGHT_TICKS - MIN_FIGHT_TICKS + 1);
+    }
+
+    private String report() {
+        return String.format("Soak: %d/%d matches in %d ticks, %d concurrent, %d frames to the matchmaker, unhandled %s%n"
+                        + "Queue to match (server time): %d samples, mean %.0fms p50 %.0fms p99 %.0fms max %.0fms%n"
+                        + "Tick cost: %d samples, mean %.2fms p50 %.2fms p99 %.2fms max %.2fms%n"
+                        + "Arena setup: not measured, placement is stubbed on the mock server",
+                matchesCompleted, MATCHES, tick, DUELS, matchmaker.getFramesReceived(), matchmaker.getUnhandledTypes(),
+                queueToMatch.getCount(), queueToMatch.getMeanMillis(), queueToMatch.getPercentileMillis(50),
+                queueToMatch.getPercentileMillis(99), queueToMatch.getMaxMillis(),
+                tickCost.getCount(), tickCost.getMeanMillis(), tickCost.getPercentileMillis(50),
+                tickCost.getPercentileMillis(99), tickCost.getMaxMillis());
+    }
+}
@@ -0,0 +1,73 @@
+package net.pixelateddream.macebattles.misc;
+
+import net.pixelateddream.macebattles.Macebattles;
+import net.pixelateddream.macebattles.commands.DuelsMenu;
+import net.pixelateddream.macebattles.match.MapManager;
+import net.pixelateddream.macebattles.matchmaking.MatchmakerTransport;
+import net.pixelateddream.macebattles.util.TickMonitor;
+import net.pixelateddream.macebattles.util.TimingWheel;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.mockbukkit.mockbukkit.ServerMock;
+
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A real MatchmakingListener on a mocked plugin, for tests against a stand-in matchmaker
+ * Only what the listener reaches through the plugin is mocked (map manager, tick monitor, duels menu),
+ * the timing wheel is real and advanced by the mock server's scheduler.
+ */
+final class MatchmakingTestNode {
+    private static final Logger LOGGER = Logger.getLogger("MacebattlesTest");
+
+    static {
+        LOGGER.setLevel(Level.WARNING);
+    }
+
+    final Macebattles plugin = mock(Macebattles.class);
+    final MapManager mapManager = mock(MapManager.class);
+    final TickMonitor tickMonitor = mock(TickMonitor.class);
+    final YamlConfiguration config;
+    final MatchmakingListener listener;
+
+    /**
+     * @param nodeId matchmaking.node.server-id of this node
+     * @param configure Changes to the bundled config.yml, applied before the listener reads it
+     * @param transportFactory Creates the stand-in transport
+     */
+    MatchmakingTestNode(ServerMock server, File dataFolder, String nodeId, Consumer<YamlConfiguration> configure,
+                        MatchmakerTransport.Factory transportFactory) {
+        config = YamlConfiguration.loadConfiguration(new InputStreamReader(
+                Objects.requireNonNull(MatchmakingTestNode.class.getResourceAsStream("/config.yml")), StandardCharsets.UTF_8));
+        config.set("matchmaking.node.server-id", nodeId);
+        config.set("matchmaking.local-fallback.enabled", false);
+        config.set("matchmaking.reconcile.interval-seconds", 0);
+        configure.accept(config);
+
+        when(tickMonitor.getTickIntervalMillis()).thenReturn(50.0);
+        TimingWheel timingWheel = new TimingWheel(1024, LOGGER);
+
+        when(plugin.getName()).thenReturn("Macebattles");
+        when(plugin.isEnabled()).thenReturn(true);
+        when(plugin.getServer()).thenReturn(server);
+        when(plugin.getLogger()).thenReturn(LOGGER);
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getTickMonitor()).thenReturn(tickMonitor);
+        when(plugin.getTimingWheel()).thenReturn(timingWheel);
+        when(plugin.getMapManager()).thenReturn(mapManager);
+        when(plugin.getDuelsMenu()).thenReturn(mock(DuelsMenu.class));
+
+        listener = new MatchmakingListener(plugin, "ws://" + nodeId + ".invalid/ws", transportFactory);
+        when(plugin.getMatchmakingListener()).thenReturn(listener);
+        server.getScheduler().runTaskTimer(plugin, timingWheel::advance, 1L, 1L);
+    }
+}